@@ -0,0 +1,54 @@
+package technikal.task.fishmarket.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+
+/**
+ * Detached catalog rows shaped like what the repository returns, so benchmarks measure our code and not a database.
+ */
+final class BenchmarkData {
+
+    private static final String[] NAMES = {"Короп дзеркальний", "Щука", "Судак", "Лящ", "Карась сріблястий", "Сом"};
+    private static final long CATCH_DATE = 1_760_000_000_000L;
+
+    private BenchmarkData() {
+    }
+
+    static Fish fish(long id, int imageCount) {
+        Fish fish = new Fish();
+        fish.setId(id);
+        fish.setName(NAMES[(int) (id % NAMES.length)] + " " + id);
+        fish.setPrice(50 + id % 400 + 0.5);
+        fish.setCatchDate(new Date(CATCH_DATE - id * 60_000));
+        for (int i = 0; i < imageCount; i++) {
+            String hash = String.format("%064x", id * 3 + i);
+            FishImage image = new FishImage();
+            image.setId(id * 3 + i);
+            image.setFileName(hash + ".jpg");
+            image.setThumbnailFileName(hash + "-200.jpg");
+            image.setMediumFileName(hash + "-800.jpg");
+            image.setContentHash(hash);
+            image.setWidth(1920);
+            image.setHeight(1080);
+            image.setSizeBytes(350_000L);
+            fish.addImage(image);
+        }
+        return fish;
+    }
+
+    /**
+     * A middle page of the catalog, newest first, with one to three images per fish.
+     */
+    static FishPage page(int rows) {
+        List<Fish> items = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long id = 100_000L - i;
+            items.add(fish(id, 1 + (int) (id % 3)));
+        }
+        return new FishPage(items, rows, 100_000L, 100_000L - rows + 1);
+    }
+}
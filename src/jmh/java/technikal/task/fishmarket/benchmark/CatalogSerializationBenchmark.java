@@ -0,0 +1,48 @@
+package technikal.task.fishmarket.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishPageView;
+
+/**
+ * {@code GET /api/fish}: mapping a page of entities to {@link FishPageView} and writing it as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int rows;
+
+    private FishPage page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        page = BenchmarkData.page(rows);
+        // the same defaults Spring Boot applies to the application's ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public byte[] pageJson() throws Exception {
+        return objectMapper.writeValueAsBytes(FishPageView.of(page));
+    }
+}
@@ -0,0 +1,103 @@
+package technikal.task.fishmarket.benchmark;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.extras.springsecurity6.dialect.SpringSecurityDialect;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSort;
+
+/**
+ * Renders {@code index.html} the way {@code GET /fish} does (same model attributes, Spring Security dialect,
+ * cached template), for a signed-in user or admin. The page cache in front of it is not involved.
+ * Thread-scoped because the authentication sits in the worker thread's security context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogTemplateBenchmark {
+
+    @Param({"20", "100"})
+    private int rows;
+
+    @Param({"USER", "ADMIN"})
+    private String role;
+
+    private SpringTemplateEngine templateEngine;
+    private WebContext context;
+
+    @Setup
+    public void setUp() {
+        MockServletContext servletContext = new MockServletContext();
+        GenericWebApplicationContext applicationContext = new GenericWebApplicationContext(servletContext);
+        // sec:authorize evaluates its expression with the handler it finds in the web application context
+        applicationContext.registerBean(DefaultWebSecurityExpressionHandler.class);
+        applicationContext.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        templateEngine.setEnableSpringELCompiler(true);
+        templateEngine.addDialect(new SpringSecurityDialect());
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "bench", null, AuthorityUtils.createAuthorityList("ROLE_" + role)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/fish");
+        context = new WebContext(JakartaServletWebApplication.buildApplication(servletContext)
+                .buildExchange(request, new MockHttpServletResponse()));
+        FishPage page = BenchmarkData.page(rows);
+        context.setVariable("fishPage", page);
+        context.setVariable("fishlist", page.getItems());
+        context.setVariable("filter", FishFilter.NONE);
+        context.setVariable("filterQuery", "");
+        context.setVariable("sortOptions", FishSort.values());
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String renderIndex() {
+        StringWriter writer = new StringWriter(rows * 1024);
+        templateEngine.process("index", context, writer);
+        return writer.toString();
+    }
+}
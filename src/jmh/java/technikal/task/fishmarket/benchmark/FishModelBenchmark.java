@@ -0,0 +1,49 @@
+package technikal.task.fishmarket.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishView;
+
+/**
+ * Per-row model work done for every fish on every listing: the image file name list and the JSON view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FishModelBenchmark {
+
+    @Param({"1", "3"})
+    private int imageCount;
+
+    private Fish fish;
+
+    @Setup
+    public void setUp() {
+        fish = BenchmarkData.fish(42, imageCount);
+    }
+
+    @Benchmark
+    public List<String> imageFileNamesList() {
+        return fish.getImageFileNamesList();
+    }
+
+    @Benchmark
+    public FishView fishView() {
+        return FishView.of(fish);
+    }
+}
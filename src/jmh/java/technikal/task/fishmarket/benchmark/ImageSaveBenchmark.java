@@ -0,0 +1,162 @@
+package technikal.task.fishmarket.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.service.FishMetrics;
+import technikal.task.fishmarket.service.FishUploadService;
+import technikal.task.fishmarket.service.FishUploadService.FishUpload;
+import technikal.task.fishmarket.service.ImageOptimizer;
+import technikal.task.fishmarket.service.ImageStore;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+/**
+ * {@link FishUploadService#receive} on a create-form body: parsing the multipart stream, hashing and writing each
+ * photo into the sharded store as it arrives, one after another, and reading its dimensions. The repository is a
+ * stub, so the numbers are file system and CPU only. Every invocation gets photos with unique content (a counter
+ * after the JPEG end marker), otherwise content addressing would turn all but the first save into a lookup; the
+ * files are deleted again outside the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageSaveBenchmark {
+
+    private static final String BOUNDARY = "----fishbench";
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+
+    /**
+     * Photo resolution; the JPEGs come out at roughly 60 KB, 400 KB and 2.3 MB.
+     */
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    private String resolution;
+
+    @Param({"1", "3"})
+    private int imageCount;
+
+    private Path root;
+    private FishUploadService uploadService;
+    private byte[] jpeg;
+    private long counter;
+    private byte[] body;
+    private FishUpload upload;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        root = Files.createTempDirectory("fish-bench-images-");
+        ImageStore imageStore = new ImageStore(new ShardedImageStorage(root), stub(FishImageRepository.class),
+                ImageOptimizer.disabled());
+        uploadService = new FishUploadService(imageStore, new FishMetrics(new SimpleMeterRegistry()), 20);
+        String[] size = resolution.split("x");
+        jpeg = jpeg(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(imageCount * (jpeg.length + 256) + 256);
+        field(out, "name", "Короп");
+        field(out, "price", "120");
+        for (int i = 0; i < imageCount; i++) {
+            out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + FishUploadService.IMAGE_FIELD
+                    + "\"; filename=\"fish.jpg\"\r\nContent-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(ByteBuffer.allocate(jpeg.length + Long.BYTES).put(jpeg).putLong(++counter).array());
+            out.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        body = out.toByteArray();
+    }
+
+    @Benchmark
+    public FishUpload receive() throws IOException {
+        upload = uploadService.receive(CONTENT_TYPE, body.length, new ByteArrayInputStream(body));
+        return upload;
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteSavedImages() {
+        if (upload != null) {
+            uploadService.discard(upload.images());
+            upload = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void field(ByteArrayOutputStream out, String name, String value) {
+        out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value
+                + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Repository stub: {@code existsByFileName} always says no, so teardown can delete the stored files; anything
+     * else is a mistake in the benchmark.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "existsByFileName" -> {
+                    return false;
+                }
+                case "toString" -> {
+                    return type.getSimpleName() + " stub";
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Smooth gradients with some noise, so the JPEG compresses about as well as a real photo.
+     */
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(24);
+                int r = (x * 255 / width + noise) & 0xff;
+                int g = (y * 255 / height + noise) & 0xff;
+                int b = ((x + y) * 127 / (width + height) + noise) & 0xff;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -2,8 +2,10 @@ package technikal.task.fishmarket;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FishmarketApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,50 @@
+package technikal.task.fishmarket.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+// cache advice wraps the transactional one, so a hit never opens a transaction or borrows a connection
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String FISH_PAGES_CACHE = "fishPages";
+    public static final String FISH_CACHE = "fish";
+    public static final String CATALOG_HTML_CACHE = "catalogHtml";
+
+    /**
+     * Bounded Caffeine caches for the catalog. The manager is transaction-aware: evictions issued inside
+     * {@code addFish}/{@code deleteFish} are applied only once the transaction commits, and dropped on rollback.
+     * Each cache is a {@link GenerationalCache}, so a read that ran across such a commit does not store the
+     * rows it saw before it.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${fishmarket.cache.pages-spec:maximumSize=500,expireAfterWrite=10m}") String pagesSpec,
+            @Value("${fishmarket.cache.fish-spec:maximumSize=2000,expireAfterWrite=10m}") String fishSpec,
+            @Value("${fishmarket.cache.html-spec:maximumSize=200,expireAfterWrite=10m}") String htmlSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new GenerationalCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        // fixes the set of caches (no on-demand creation); the custom registrations below replace the defaults
+        cacheManager.setCacheNames(List.of(FISH_PAGES_CACHE, FISH_CACHE, CATALOG_HTML_CACHE));
+        cacheManager.registerCustomCache(FISH_PAGES_CACHE, Caffeine.from(pagesSpec).recordStats().build());
+        cacheManager.registerCustomCache(FISH_CACHE, Caffeine.from(fishSpec).recordStats().build());
+        cacheManager.registerCustomCache(CATALOG_HTML_CACHE, Caffeine.from(htmlSpec).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,87 @@
+package technikal.task.fishmarket.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * A Caffeine cache that counts its evictions. A reader notes the {@link #generation()} before it queries the
+ * database and stores the result through {@link #putIfCurrent}, so a value read before a write committed is not
+ * put back after that write's eviction already ran. {@code @Cacheable(sync = true)} methods go through
+ * {@link #get(Object, Callable)}, which does this for them.
+ */
+public class GenerationalCache extends CaffeineCache {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public GenerationalCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                             boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores a value loaded after {@link #generation()} returned {@code seen}, unless an eviction has run since.
+     * The check is repeated after the put for an eviction that lands in between.
+     */
+    public void putIfCurrent(Object key, Object value, long seen) {
+        if (generation.get() != seen) {
+            return;
+        }
+        super.put(key, value);
+        if (generation.get() != seen) {
+            super.evict(key);
+        }
+    }
+
+    /**
+     * Loads on a miss without holding Caffeine's per-key lock: two threads may load the same key at once,
+     * but an eviction after commit never waits for a query to finish.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long seen = generation.get();
+        ValueWrapper cached = super.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        putIfCurrent(key, value, seen);
+        return value;
+    }
+
+    // the generation moves before the entries go, so a reader that checks after the removal sees it
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generation.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generation.incrementAndGet();
+        return super.invalidate();
+    }
+}
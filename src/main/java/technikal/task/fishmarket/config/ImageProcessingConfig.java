@@ -0,0 +1,59 @@
+package technikal.task.fishmarket.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImageProcessingConfig {
+
+    /**
+     * Bounded pool for thumbnail rendering. When the queue is full the submitting thread renders the image itself,
+     * which slows uploads down instead of dropping renditions.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailExecutor(@Value("${fishmarket.thumbnails.pool-size:2}") int poolSize,
+                                                    @Value("${fishmarket.thumbnails.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Workers that store and inspect the images of a bulk import in parallel. The queue is bounded
+     * like the thumbnail pool; when it is full the importing request thread does the work itself.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(@Value("${fishmarket.import.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 64);
+        executor.setThreadNamePrefix("import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Removes the files of purged fish after their transaction commits, off the purging thread. Unlike the other
+     * pools it drops work when the queue is full: the files left behind are found by {@code ImageReconciler}.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageDeleteExecutor(@Value("${fishmarket.images.delete-threads:1}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("image-delete-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package technikal.task.fishmarket.config;
+
+import java.nio.file.Paths;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import technikal.task.fishmarket.storage.FlatImageStorage;
+import technikal.task.fishmarket.storage.ImageStorage;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+@Configuration
+public class ImageStorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "fishmarket.images.layout", havingValue = "sharded", matchIfMissing = true)
+    public ImageStorage shardedImageStorage(@Value("${fishmarket.images.dir:public/images}") String dir) {
+        return new ShardedImageStorage(Paths.get(dir));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fishmarket.images.layout", havingValue = "flat")
+    public ImageStorage flatImageStorage(@Value("${fishmarket.images.dir:public/images}") String dir) {
+        return new FlatImageStorage(Paths.get(dir));
+    }
+}
@@ -1,7 +1,9 @@
 package technikal.task.fishmarket.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,10 +12,17 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import technikal.task.fishmarket.profiling.ProfilingPasswordEncoder;
 
 @Configuration
 public class SecurityConfig {
 
+    private static final String REALM = "fishmarket";
+
     @Bean
     public UserDetailsService userDetailsService() {
         UserDetails admin = User.withUsername("admin")
@@ -31,8 +40,13 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/images/**", "/favicon.ico", "/login").permitAll()
+                        // error dispatches (e.g. the 401 of a Basic challenge) must not be redirected to the login page
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
+                        .requestMatchers("/images/**", "/favicon.ico", "/login", "/actuator/health").permitAll()
                         .requestMatchers("/fish/create", "/fish/create/**", "/fish/delete/**").hasRole("ADMIN")
+                        .requestMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/fish", "/api/fish/import", "/api/fish/delete").hasRole("ADMIN")
+                        .requestMatchers("/api/fish/uploads/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -43,13 +57,30 @@ public class SecurityConfig {
                 .logout(logout -> logout
                         .logoutSuccessUrl("/login?logout")
                 )
+                .httpBasic(basic -> basic
+                        .realmName(REALM)
+                )
+                .exceptionHandling(exceptions -> exceptions
+                        // API clients and the Prometheus scraper get a Basic challenge, everything else keeps
+                        // redirecting to the login page
+                        .defaultAuthenticationEntryPointFor(apiEntryPoint(), new AntPathRequestMatcher("/api/**"))
+                        .defaultAuthenticationEntryPointFor(apiEntryPoint(), new AntPathRequestMatcher("/actuator/**"))
+                        .defaultAuthenticationEntryPointFor(new LoginUrlAuthenticationEntryPoint("/login"),
+                                AnyRequestMatcher.INSTANCE)
+                )
                 .csrf(csrf -> csrf.disable());
 
         return http.build();
     }
 
+    private static BasicAuthenticationEntryPoint apiEntryPoint() {
+        BasicAuthenticationEntryPoint entryPoint = new BasicAuthenticationEntryPoint();
+        entryPoint.setRealmName(REALM);
+        return entryPoint;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new ProfilingPasswordEncoder(new BCryptPasswordEncoder());
     }
 }
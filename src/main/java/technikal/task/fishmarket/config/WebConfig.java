@@ -1,14 +1,15 @@
 package technikal.task.fishmarket.config;
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import technikal.task.fishmarket.profiling.TemplateRenderInterceptor;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:public/images/");
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TemplateRenderInterceptor());
     }
 }
@@ -0,0 +1,50 @@
+package technikal.task.fishmarket.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Hit/miss statistics of the in-process catalog caches, for administrators.
+ */
+@RestController
+@RequestMapping(CacheStatsController.CACHE_STATS_PATH)
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    public static final String CACHE_STATS_PATH = "/admin/cache";
+
+    private final CacheManager cacheManager;
+
+    @GetMapping
+    public Map<String, CacheStatistics> cacheStats() {
+        Map<String, CacheStatistics> result = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache instanceof CaffeineCache caffeineCache) {
+                result.put(name, CacheStatistics.of(caffeineCache.getNativeCache().estimatedSize(),
+                        caffeineCache.getNativeCache().stats()));
+            }
+        }
+        return result;
+    }
+
+    public record CacheStatistics(long size, long hits, long misses, double hitRate, long evictions) {
+
+        static CacheStatistics of(long size, CacheStats stats) {
+            return new CacheStatistics(size, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                    stats.evictionCount());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package technikal.task.fishmarket.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import technikal.task.fishmarket.config.CacheConfig;
+import technikal.task.fishmarket.config.GenerationalCache;
+import technikal.task.fishmarket.model.FishFilter;
+
+/**
+ * Caches the rendered catalog page ({@code GET /fish}) per role and page, together with a gzip copy,
+ * so a repeated listing is a byte copy instead of a Thymeleaf evaluation. The page differs only by role
+ * ({@code sec:authorize}), never by user. Entries are evicted with the other catalog caches on writes; a page
+ * rendered while such an eviction ran is served but not stored (see {@link GenerationalCache}).
+ */
+@Component
+public class CatalogPageCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final GenerationalCache cache;
+
+    public CatalogPageCacheFilter(CacheManager cacheManager) {
+        // the filter runs outside any transaction, so it can talk to the cache behind the transaction-aware one
+        Cache cache = cacheManager.getCache(CacheConfig.CATALOG_HTML_CACHE);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        this.cache = (GenerationalCache) cache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !(path.equals(FishController.FISH_BASE_PATH) || path.equals(FishController.FISH_BASE_PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CatalogPageKey key = CatalogPageKey.of(request);
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RenderedPage page = cache.get(key, RenderedPage.class);
+        if (page == null) {
+            long generation = cache.generation();
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (!isCacheable(request, wrapper)) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            page = RenderedPage.of(wrapper.getContentType(), wrapper.getContentAsByteArray());
+            cache.putIfCurrent(key, page, generation);
+        }
+        page.writeTo(request, response);
+    }
+
+    /**
+     * Only a successfully rendered catalog is cached: the exception handlers also answer with 200,
+     * but the dispatcher marks those requests with the handled exception.
+     */
+    private static boolean isCacheable(HttpServletRequest request, ContentCachingResponseWrapper response) {
+        return response.getStatus() == HttpServletResponse.SC_OK
+                && request.getAttribute(RequestDispatcher.ERROR_EXCEPTION) == null
+                && response.getContentType() != null
+                && response.getContentType().startsWith("text/html");
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The role decides which {@code sec:authorize} blocks are rendered; the rest of the key mirrors
+     * {@link FishController#showFishList}. Filtered listings and requests with unparseable parameters
+     * are not cached here; their data still comes from the page cache.
+     */
+    record CatalogPageKey(String role, Long before, Long after, Integer size) {
+
+        static CatalogPageKey of(HttpServletRequest request) {
+            if (FishFilter.PARAMETERS.stream().anyMatch(name -> request.getParameter(name) != null)) {
+                return null;
+            }
+            String role = request.getUserPrincipal() == null ? "ANONYMOUS"
+                    : request.isUserInRole("ADMIN") ? "ADMIN" : "USER";
+            try {
+                return new CatalogPageKey(role, parseLong(request.getParameter("before")),
+                        parseLong(request.getParameter("after")), parseInteger(request.getParameter("size")));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private static Long parseLong(String value) {
+            return value == null || value.isEmpty() ? null : Long.valueOf(value);
+        }
+
+        private static Integer parseInteger(String value) {
+            return value == null || value.isEmpty() ? null : Integer.valueOf(value);
+        }
+    }
+
+    record RenderedPage(String contentType, byte[] html, byte[] gzipped) {
+
+        static RenderedPage of(String contentType, byte[] html) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(html.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(html);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new RenderedPage(contentType, html, buffer.toByteArray());
+        }
+
+        void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            byte[] body = gzip ? gzipped : html;
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
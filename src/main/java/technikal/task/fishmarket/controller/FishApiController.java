@@ -0,0 +1,108 @@
+package technikal.task.fishmarket.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import technikal.task.fishmarket.model.FishDeleteReport;
+import technikal.task.fishmarket.model.FishDeleteRequest;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImportReport;
+import technikal.task.fishmarket.model.FishPageView;
+import technikal.task.fishmarket.model.FishSearchView;
+import technikal.task.fishmarket.model.FishView;
+import technikal.task.fishmarket.repository.FishExportRepository;
+import technikal.task.fishmarket.service.FishImportService;
+import technikal.task.fishmarket.service.FishService;
+
+/**
+ * JSON access to the catalog for scripts and other services; bulk import and delete are for administrators.
+ */
+@RestController
+@RequestMapping(FishApiController.API_BASE_PATH)
+@RequiredArgsConstructor
+public class FishApiController {
+
+    public static final String API_BASE_PATH = "/api/fish";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final FishService fishService;
+    private final FishExportRepository fishExportRepository;
+    private final FishImportService fishImportService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public FishPageView getFishPage(FishFilter filter,
+                                    @RequestParam(required = false) Long before,
+                                    @RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer size) {
+        return FishPageView.of(fishService.getFishPage(filter, before, after, size));
+    }
+
+    @GetMapping("/search")
+    public FishSearchView searchFish(@RequestParam(defaultValue = "") String q,
+                                     @RequestParam(required = false) Integer page,
+                                     @RequestParam(required = false) Integer size) {
+        return FishSearchView.of(fishService.searchFish(q, page, size));
+    }
+
+    @GetMapping("/{id}")
+    public FishView getFish(@PathVariable Long id) {
+        return FishView.of(fishService.getFish(id));
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, one fish per line, ordered by id.
+     * Each line is written as soon as its rows are read, so the export runs in constant memory.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportFish(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        // let the response buffer decide when to send, instead of flushing after every line
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            fishExportRepository.forEachFish(fish -> {
+                try {
+                    writer.writeValue(generator, fish);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Imports fish from a CSV manifest ({@code name,price,images}, image names separated by {@code |})
+     * and a ZIP holding those images. Invalid rows are reported and skipped, the rest are saved.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public FishImportReport importFish(@RequestParam MultipartFile manifest, @RequestParam MultipartFile images) {
+        return fishImportService.importFish(manifest, images);
+    }
+
+    /**
+     * Soft-deletes the listed fish with set-based updates; rows and images are purged in the background.
+     */
+    @PostMapping("/delete")
+    public FishDeleteReport deleteFish(@Valid @RequestBody FishDeleteRequest request) {
+        int deleted = fishService.deleteFish(request.ids());
+        return new FishDeleteReport(request.ids().size(), deleted);
+    }
+}
@@ -1,19 +1,38 @@
 package technikal.task.fishmarket.controller;
 
-import jakarta.validation.Valid;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.util.UriComponentsBuilder;
+import technikal.task.fishmarket.exception.ImageStorageException;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
 import technikal.task.fishmarket.model.FishDto;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSearchPage;
+import technikal.task.fishmarket.model.FishSort;
+import technikal.task.fishmarket.service.FishMetrics;
 import technikal.task.fishmarket.service.FishService;
+import technikal.task.fishmarket.service.FishUploadService;
+import technikal.task.fishmarket.service.FishUploadService.FishUpload;
 
 @Controller
 @RequestMapping(FishController.FISH_BASE_PATH)
@@ -24,14 +43,42 @@ public class FishController {
     private static final String REDIRECT_FISH = "redirect:/fish";
     private static final String CREATE_FISH_PAGE = "createFish";
     private static final String MODEL_FISH_LIST = "fishlist";
+    private static final String MODEL_FISH_PAGE = "fishPage";
+    private static final String MODEL_SEARCH_PAGE = "searchPage";
+    private static final String MODEL_FILTER = "filter";
+    private static final String MODEL_FILTER_QUERY = "filterQuery";
+    private static final String MODEL_SORT_OPTIONS = "sortOptions";
     private static final String MODEL_FISH_DTO = "fishDto";
-    private static final String FIELD_IMAGE_FILE = "imageFiles";
+    private static final String FIELD_IMAGE_FILE = FishUploadService.IMAGE_FIELD;
 
     private final FishService fishService;
+    private final FishUploadService fishUploadService;
+    private final FishMetrics fishMetrics;
+    private final Validator validator;
 
     @GetMapping({"", "/"})
-    public String showFishList(Model model) {
-        model.addAttribute(MODEL_FISH_LIST, fishService.getAllFish());
+    public String showFishList(FishFilter filter,
+                               @RequestParam(required = false) Long before,
+                               @RequestParam(required = false) Long after,
+                               @RequestParam(required = false) Integer size,
+                               Model model) {
+        FishPage page = fishService.getFishPage(filter, before, after, size);
+        model.addAttribute(MODEL_FISH_PAGE, page);
+        model.addAttribute(MODEL_FISH_LIST, page.getItems());
+        model.addAttribute(MODEL_FILTER, filter);
+        model.addAttribute(MODEL_FILTER_QUERY, filterQuery(filter));
+        model.addAttribute(MODEL_SORT_OPTIONS, FishSort.values());
+        return "index";
+    }
+
+    @GetMapping("/search")
+    public String searchFish(@RequestParam(defaultValue = "") String q,
+                             @RequestParam(required = false) Integer page,
+                             @RequestParam(required = false) Integer size,
+                             Model model) {
+        FishSearchPage searchPage = fishService.searchFish(q, page, size);
+        model.addAttribute(MODEL_SEARCH_PAGE, searchPage);
+        model.addAttribute(MODEL_FISH_LIST, searchPage.getItems());
         return "index";
     }
 
@@ -41,29 +88,104 @@ public class FishController {
         return CREATE_FISH_PAGE;
     }
 
+    /**
+     * Reads the form body itself instead of binding a {@code MultipartFile} list: the photos go straight from the
+     * request into the image store (see {@link FishUploadService}). Multipart parsing is lazy
+     * ({@code spring.servlet.multipart.resolve-lazily}), so Spring does not buffer the body first.
+     */
     @PostMapping("/create")
-    public String addFish(@Valid @ModelAttribute FishDto fishDto, BindingResult result) {
-        if (fishDto.getImageFiles() == null || fishDto.getImageFiles().isEmpty()) {
+    public String addFish(HttpServletRequest request, Model model) throws IOException {
+        FishDto fishDto = new FishDto();
+        WebDataBinder binder = new WebDataBinder(fishDto, MODEL_FISH_DTO);
+        binder.setValidator(new SpringValidatorAdapter(validator));
+        BindingResult result = binder.getBindingResult();
+        model.addAllAttributes(result.getModel());
+
+        Timer.Sample sample = fishMetrics.start();
+        FishUpload upload;
+        try {
+            upload = fishUploadService.receive(request.getContentType(), request.getContentLengthLong(),
+                    request.getInputStream());
+        } catch (InvalidFishDataException e) {
+            result.addError(new FieldError(MODEL_FISH_DTO, FIELD_IMAGE_FILE, e.getMessage()));
+            return CREATE_FISH_PAGE;
+        } catch (ImageStorageException e) {
+            result.addError(new FieldError(MODEL_FISH_DTO, FIELD_IMAGE_FILE, "Помилка при збереженні файлу"));
+            return CREATE_FISH_PAGE;
+        }
+        binder.bind(new MutablePropertyValues(upload.fields()));
+        binder.validate();
+        return addFish(fishDto, upload.images(), result, sample);
+    }
+
+    /**
+     * {@code sample} was started before the photos were read, so the create timer includes storing them.
+     */
+    String addFish(FishDto fishDto, List<FishImage> images, BindingResult result, Timer.Sample sample) {
+        if (images.isEmpty()) {
             result.addError(new FieldError(MODEL_FISH_DTO, FIELD_IMAGE_FILE, "Потрібне хоча б одне фото рибки"));
         }
 
         if (result.hasErrors()) {
+            fishUploadService.discard(images);
             return CREATE_FISH_PAGE;
         }
 
         try {
-            fishService.addFish(fishDto);
+            fishService.addFish(fishDto, images);
         } catch (Exception e) {
+            fishMetrics.fishAdded(sample, images.size(), false);
+            fishUploadService.discard(images);
             result.addError(new FieldError(MODEL_FISH_DTO, FIELD_IMAGE_FILE, "Помилка при збереженні файлу"));
             return CREATE_FISH_PAGE;
         }
+        fishMetrics.fishAdded(sample, images.size(), true);
 
         return REDIRECT_FISH;
     }
 
+    /**
+     * Called by the per-row button, which removes the row itself instead of reloading the page.
+     */
     @DeleteMapping("/delete")
-    public String deleteFish(@RequestParam Long id) {
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteFish(@RequestParam Long id) {
         fishService.deleteFish(id);
+    }
+
+    /**
+     * Deletes the fish ticked in the catalog in one request.
+     */
+    @PostMapping("/delete")
+    public String deleteFish(@RequestParam(required = false) List<Long> ids) {
+        if (ids != null && !ids.isEmpty()) {
+            fishService.deleteFish(ids);
+        }
         return REDIRECT_FISH;
     }
-}
\ No newline at end of file
+
+    /**
+     * The active filter as {@code &name=value} pairs, appended to the pagination links so paging keeps it.
+     */
+    static String filterQuery(FishFilter filter) {
+        if (filter == null) {
+            return "";
+        }
+        UriComponentsBuilder query = UriComponentsBuilder.newInstance();
+        addParam(query, "minPrice", filter.minPrice());
+        addParam(query, "maxPrice", filter.maxPrice());
+        addParam(query, "caughtFrom", filter.caughtFrom());
+        addParam(query, "caughtTo", filter.caughtTo());
+        if (filter.sort() != FishSort.NEWEST) {
+            addParam(query, "sort", filter.sort());
+        }
+        String encoded = query.build().encode().getQuery();
+        return encoded == null ? "" : "&" + encoded;
+    }
+
+    private static void addParam(UriComponentsBuilder query, String name, Object value) {
+        if (value != null) {
+            query.queryParam(name, value);
+        }
+    }
+}
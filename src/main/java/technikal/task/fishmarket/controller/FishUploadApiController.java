@@ -0,0 +1,96 @@
+package technikal.task.fishmarket.controller;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Valid;
+import java.io.InputStream;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import technikal.task.fishmarket.model.ChunkedUploadRequest;
+import technikal.task.fishmarket.model.ChunkedUploadStatus;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishDto;
+import technikal.task.fishmarket.model.FishFromUploadsRequest;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishView;
+import technikal.task.fishmarket.service.ChunkedUploadService;
+import technikal.task.fishmarket.service.FishMetrics;
+import technikal.task.fishmarket.service.FishService;
+import technikal.task.fishmarket.service.FishUploadService;
+
+/**
+ * Resumable photo uploads for administrators: start an upload, {@code PUT} its chunks (in any order, again after
+ * a dropped connection), check {@code GET} for what is still missing, then create the fish from the uploads.
+ */
+@RestController
+@RequestMapping(FishApiController.API_BASE_PATH)
+@RequiredArgsConstructor
+public class FishUploadApiController {
+
+    public static final String CHUNK_SHA256_HEADER = "X-Chunk-SHA256";
+
+    private final ChunkedUploadService chunkedUploadService;
+    private final FishService fishService;
+    private final FishUploadService fishUploadService;
+    private final FishMetrics fishMetrics;
+
+    @PostMapping("/uploads")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ChunkedUploadStatus startUpload(@Valid @RequestBody ChunkedUploadRequest request) {
+        return chunkedUploadService.start(request);
+    }
+
+    @GetMapping("/uploads/{id}")
+    public ChunkedUploadStatus getUpload(@PathVariable String id) {
+        return chunkedUploadService.status(id);
+    }
+
+    @PutMapping(value = "/uploads/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ChunkedUploadStatus putChunk(@PathVariable String id, @PathVariable int index,
+                                        @RequestHeader(name = CHUNK_SHA256_HEADER, required = false) String sha256,
+                                        InputStream body) {
+        return chunkedUploadService.putChunk(id, index, sha256, body);
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelUpload(@PathVariable String id) {
+        chunkedUploadService.finish(List.of(id));
+    }
+
+    /**
+     * Completes the uploads and saves the fish in one step. The uploads are removed only once the fish is saved,
+     * so a request that fails can simply be sent again; the images stored for it are discarded.
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public FishView createFish(@Valid @RequestBody FishFromUploadsRequest request) {
+        Timer.Sample sample = fishMetrics.start();
+        List<FishImage> images = chunkedUploadService.assemble(request.uploads());
+        FishDto fishDto = new FishDto();
+        fishDto.setName(request.name());
+        fishDto.setPrice(request.price());
+        Fish fish;
+        try {
+            fish = fishService.addFish(fishDto, images);
+        } catch (RuntimeException ex) {
+            fishMetrics.fishAdded(sample, images.size(), false);
+            fishUploadService.discard(images);
+            throw ex;
+        }
+        fishMetrics.fishAdded(sample, images.size(), true);
+        chunkedUploadService.finish(request.uploads());
+        return FishView.of(fish);
+    }
+}
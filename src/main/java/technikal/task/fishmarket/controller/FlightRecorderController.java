@@ -0,0 +1,88 @@
+package technikal.task.fishmarket.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import technikal.task.fishmarket.profiling.FlightRecorderService;
+import technikal.task.fishmarket.profiling.FlightRecorderService.RecordingStatus;
+import technikal.task.fishmarket.profiling.RequestBreakdown;
+
+/**
+ * Production profiling for administrators: start and stop a Flight Recorder recording, download it for
+ * JDK Mission Control, or see the slowest recorded requests split into database, image I/O, template and
+ * password hashing time.
+ */
+@RestController
+@RequestMapping(FlightRecorderController.JFR_PATH)
+@RequiredArgsConstructor
+public class FlightRecorderController {
+
+    public static final String JFR_PATH = "/admin/jfr";
+    private static final int MAX_SUMMARY_LIMIT = 500;
+
+    private final FlightRecorderService flightRecorderService;
+
+    @GetMapping
+    public ResponseEntity<RecordingStatus> status() {
+        return ResponseEntity.of(flightRecorderService.status());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<RecordingStatus> start(@RequestParam(defaultValue = "default") String settings,
+                                                 @RequestParam(defaultValue = "30") int maxAgeMinutes)
+            throws IOException, ParseException {
+        if (!FlightRecorderService.SETTINGS.contains(settings) || maxAgeMinutes <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return flightRecorderService.start(settings, Duration.ofMinutes(maxAgeMinutes))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<RecordingStatus> stop() {
+        return flightRecorderService.stop()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * The recording so far as a {@code .jfr} file; works while it runs and after it is stopped.
+     */
+    @GetMapping("/dump")
+    public void dump(HttpServletResponse response) throws IOException {
+        Path file = Files.createTempFile("fishmarket-", ".jfr");
+        try {
+            if (!flightRecorderService.dump(file)) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"fishmarket.jfr\"");
+            response.setContentLengthLong(Files.size(file));
+            Files.copy(file, response.getOutputStream());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<RequestBreakdown>> summary(@RequestParam(defaultValue = "20") int limit)
+            throws IOException {
+        return ResponseEntity.of(flightRecorderService.slowestRequests(Math.max(1, Math.min(limit, MAX_SUMMARY_LIMIT))));
+    }
+}
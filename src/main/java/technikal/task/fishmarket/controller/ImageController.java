@@ -0,0 +1,276 @@
+package technikal.task.fishmarket.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriUtils;
+import technikal.task.fishmarket.service.RenditionCache;
+import technikal.task.fishmarket.storage.ImageStorage;
+
+/**
+ * Serves stored images with validators and long-lived caching. Content-addressed names never change content,
+ * so they are cached as immutable; byte ranges are supported and the body is sent with Tomcat's sendfile
+ * when the connector offers it, otherwise with {@link FileChannel#transferTo}.
+ * <p>
+ * With {@code ?w=<px>} a narrower JPEG rendition from {@link RenditionCache} is served instead (whole, without
+ * range support); the stored file is served when it is no wider than that. Renditions carry the validators of
+ * their original, so conditional requests for them never wait for a render.
+ */
+@Controller
+@RequestMapping(ImageController.IMAGES_BASE_PATH)
+@RequiredArgsConstructor
+public class ImageController {
+
+    public static final String IMAGES_BASE_PATH = "/images";
+    static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+    static final String DEFAULT_CACHE = "public, max-age=3600";
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("^([0-9a-f]{64})[._].*");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    // same cut-over as Tomcat's DefaultServlet: below this a plain write is cheaper than a sendfile hand-off
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStorage imageStorage;
+    private final RenditionCache renditionCache;
+
+    @GetMapping("/{fileName:.+}")
+    public void serveImage(@PathVariable String fileName, @RequestParam(name = "w", required = false) Integer width,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> image = isPlainFileName(fileName) ? imageStorage.find(fileName) : Optional.empty();
+        if (image.isEmpty()) {
+            // a bare status: an error dispatch would send anonymous clients to the login page
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path path = image.get();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(fileName, length, lastModified);
+        if (width != null) {
+            if (width <= 0) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            // a rendition changes only with its original, so a revalidation is answered before anything is rendered
+            String renditionEtag = renditionEtag(etag, RenditionCache.snap(width));
+            if (isNotModified(request, renditionEtag, lastModified)) {
+                setValidators(response, fileName, renditionEtag, lastModified);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            Optional<RenditionCache.Rendition> rendition = renditionCache.get(fileName, path, width);
+            if (rendition.isPresent()) {
+                setValidators(response, fileName, renditionEtag, lastModified);
+                serveRendition(rendition.get(), request, response);
+                return;
+            }
+        }
+
+        setValidators(response, fileName, etag, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(path, start, count, response);
+    }
+
+    private static void serveRendition(RenditionCache.Rendition rendition, HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        byte[] bytes = rendition.bytes();
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLength(bytes.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(bytes);
+        }
+    }
+
+    private static void setValidators(HttpServletResponse response, String fileName, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, isContentAddressed(fileName) ? IMMUTABLE_CACHE : DEFAULT_CACHE);
+    }
+
+    /**
+     * A {@code srcset} listing the rendition widths below the stored width, then the stored file itself; every
+     * width when the stored width is unknown.
+     */
+    public static String srcset(String fileName, Integer width) {
+        StringBuilder srcset = new StringBuilder();
+        String url = IMAGES_BASE_PATH + "/" + UriUtils.encodePathSegment(fileName, StandardCharsets.UTF_8);
+        for (int candidate : RenditionCache.WIDTHS) {
+            if (!srcset.isEmpty()) {
+                srcset.append(", ");
+            }
+            if (width != null && candidate >= width) {
+                return srcset.append(url).append(' ').append(width).append('w').toString();
+            }
+            srcset.append(url).append("?w=").append(candidate).append(' ').append(candidate).append('w');
+        }
+        return srcset.toString();
+    }
+
+    private static void transfer(Path path, long start, long count, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Content-addressed names identify their bytes, so the name itself is a strong validator;
+     * for legacy names size and modification time are used.
+     */
+    static String etag(String fileName, long length, long lastModified) {
+        if (isContentAddressed(fileName)) {
+            return "\"" + fileName + "\"";
+        }
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * The original's validator with the rendition width, so it is known without reading the rendition.
+     */
+    static String renditionEtag(String etag, int width) {
+        return etag.substring(0, etag.length() - 1) + "-w" + width + "\"";
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A range request is only honoured when If-Range, if present, still names the current representation.
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+
+    /**
+     * Parses a single byte range. Returns {@code [start, end]}, an empty array when the header should be ignored
+     * (multiple or malformed ranges, including a last position before the first, served as a full 200), or null
+     * when the range starts beyond the end of the file.
+     */
+    static long[] parseRange(String header, long length) {
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (matcher.group(1).isEmpty()) {
+                long suffix = Long.parseLong(matcher.group(2));
+                if (suffix == 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty() && Long.parseLong(matcher.group(2)) < start) {
+                    // last-pos before first-pos is not a valid byte-range-spec, so the whole header is ignored
+                    return new long[0];
+                }
+                end = matcher.group(2).isEmpty() ? length - 1 : Math.min(Long.parseLong(matcher.group(2)), length - 1);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException ex) {
+            return new long[0];
+        }
+    }
+
+    private static boolean isContentAddressed(String fileName) {
+        return CONTENT_ADDRESSED.matcher(fileName).matches();
+    }
+
+    private static boolean isPlainFileName(String fileName) {
+        return !fileName.startsWith(".") && fileName.indexOf('/') < 0 && fileName.indexOf('\\') < 0;
+    }
+}
@@ -0,0 +1,71 @@
+package technikal.task.fishmarket.exception;
+
+import java.util.stream.Collectors;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
+import technikal.task.fishmarket.controller.FishApiController;
+import technikal.task.fishmarket.controller.FishUploadApiController;
+
+/**
+ * JSON errors for {@code /api/**}; takes precedence over {@link GlobalExceptionHandler}, which renders HTML pages.
+ */
+@RestControllerAdvice(assignableTypes = {FishApiController.class, FishUploadApiController.class})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(FishNotFoundException.class)
+    public ProblemDetail handleFishNotFound(FishNotFoundException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(UploadNotFoundException.class)
+    public ProblemDetail handleUploadNotFound(UploadNotFoundException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidFishDataException.class)
+    public ProblemDetail handleInvalidData(InvalidFishDataException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Неправильні дані: " + ex.getMessage());
+    }
+
+    @ExceptionHandler(MissingServletRequestPartException.class)
+    public ProblemDetail handleMissingPart(MissingServletRequestPartException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Не передано файл: " + ex.getRequestPartName());
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ProblemDetail handleUnreadableBody(HttpMessageNotReadableException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Неправильне тіло запиту");
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ProblemDetail handleBadParameter(MethodArgumentTypeMismatchException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Неправильний параметр: " + ex.getName());
+    }
+
+    @ExceptionHandler(BindException.class)
+    public ProblemDetail handleBadFilter(BindException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Неправильний параметр: " + rejectedFields(ex));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ProblemDetail handleGeneric(Exception ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Невідома помилка: " + ex.getMessage());
+    }
+
+    static String rejectedFields(BindException ex) {
+        return ex.getFieldErrors().stream()
+                .map(FieldError::getField)
+                .distinct()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -1,6 +1,7 @@
 package technikal.task.fishmarket.exception;
 
 import org.springframework.ui.Model;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -25,6 +26,12 @@ public class GlobalExceptionHandler {
         return "error";
     }
 
+    @ExceptionHandler(BindException.class)
+    public String handleBadFilter(BindException ex, Model model) {
+        model.addAttribute("errorMessage", "Неправильний параметр: " + ApiExceptionHandler.rejectedFields(ex));
+        return "error";
+    }
+
     @ExceptionHandler(Exception.class)
     public String handleGeneric(Exception ex, Model model) {
         model.addAttribute("errorMessage", "Невідома помилка: " + ex.getMessage());
@@ -0,0 +1,7 @@
+package technikal.task.fishmarket.exception;
+
+public class UploadNotFoundException extends RuntimeException {
+    public UploadNotFoundException(String id) {
+        super("Завантаження " + id + " не знайдене або вже завершене");
+    }
+}
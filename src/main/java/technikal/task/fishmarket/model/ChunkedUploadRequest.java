@@ -0,0 +1,14 @@
+package technikal.task.fishmarket.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Starts a chunked upload of one photo. {@code sha256} of the whole file is optional; when given, the assembled
+ * file must match it.
+ */
+public record ChunkedUploadRequest(@NotEmpty String fileName,
+                                   @Positive long size,
+                                   @Pattern(regexp = "[0-9a-fA-F]{64}") String sha256) {
+}
@@ -0,0 +1,16 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+
+/**
+ * Progress of a chunked upload. {@code offset} is the number of bytes acknowledged without a gap from the start,
+ * so a client that lost its connection resumes with chunk {@code offset / chunkSize}; {@code missingChunks} lists
+ * every chunk still to send, including ones after a gap.
+ */
+public record ChunkedUploadStatus(String id, String fileName, long size, int chunkSize, int chunkCount,
+                                  long offset, List<Integer> missingChunks) {
+
+    public boolean isComplete() {
+        return missingChunks.isEmpty();
+    }
+}
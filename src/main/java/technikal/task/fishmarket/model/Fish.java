@@ -1,24 +1,42 @@
 package technikal.task.fishmarket.model;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Transient;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.SQLRestriction;
 
+/**
+ * Soft-deleted rows ({@code deleted_at} set) are invisible to every entity query and lookup; only the native
+ * queries of {@code FishRepository} that purge them see them.
+ */
 @Entity
 @Table(name = "fish")
+@SQLRestriction("deleted_at is null")
 @Getter
 @Setter
 public class Fish {
 
+    /**
+     * Allocated in blocks of 50 from {@code id_generator} (not IDENTITY), so Hibernate can batch the inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fish_id")
+    @TableGenerator(name = "fish_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "fish", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -28,14 +46,28 @@ public class Fish {
     @Column(name = "catch_date")
     private Date catchDate;
 
-    @Column(name = "image_file_names")
-    private String imageFileNames;
+    @Column(name = "deleted_at")
+    private Date deletedAt;
+
+    /**
+     * Loaded lazily in batches, so rendering a catalog page costs one extra query
+     * for all of its images instead of one per fish.
+     */
+    @OneToMany(mappedBy = "fish", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("sortOrder")
+    @BatchSize(size = 100)
+    private List<FishImage> images = new ArrayList<>();
+
+    public void addImage(FishImage image) {
+        image.setFish(this);
+        image.setSortOrder(images.size());
+        images.add(image);
+    }
 
     @Transient
-    public java.util.List<String> getImageFileNamesList() {
-        if (imageFileNames == null || imageFileNames.isEmpty()) {
-            return java.util.List.of();
-        }
-        return java.util.Arrays.asList(imageFileNames.split("\\s*,\\s*"));
+    public List<String> getImageFileNamesList() {
+        return images.stream()
+                .map(FishImage::getFileName)
+                .toList();
     }
 }
@@ -0,0 +1,9 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+
+/**
+ * Published by {@code FishService.addFish}; listeners that touch the stored images run after the transaction commits.
+ */
+public record FishCreatedEvent(Long fishId, String name, List<FishImage> images) {
+}
@@ -0,0 +1,7 @@
+package technikal.task.fishmarket.model;
+
+/**
+ * Outcome of a batch delete: ids that were unknown or already deleted count as requested but not deleted.
+ */
+public record FishDeleteReport(int requested, int deleted) {
+}
@@ -0,0 +1,11 @@
+package technikal.task.fishmarket.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Fish to delete in one request, by id.
+ */
+public record FishDeleteRequest(@NotEmpty @Size(max = 10_000) List<Long> ids) {
+}
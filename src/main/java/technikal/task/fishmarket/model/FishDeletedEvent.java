@@ -0,0 +1,7 @@
+package technikal.task.fishmarket.model;
+
+/**
+ * Published by {@code FishService.deleteFish}; listeners run after the transaction commits.
+ */
+public record FishDeletedEvent(Long fishId) {
+}
@@ -0,0 +1,31 @@
+package technikal.task.fishmarket.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Optional catalog filters bound from the {@code /fish} and {@code /api/fish} query parameters.
+ * Price bounds are inclusive; catch dates are whole days in the server time zone, both ends included.
+ */
+public record FishFilter(Double minPrice,
+                         Double maxPrice,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate caughtFrom,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate caughtTo,
+                         FishSort sort) {
+
+    public static final FishFilter NONE = new FishFilter(null, null, null, null, FishSort.NEWEST);
+
+    public static final List<String> PARAMETERS = List.of("minPrice", "maxPrice", "caughtFrom", "caughtTo", "sort");
+
+    public FishFilter {
+        if (sort == null) {
+            sort = FishSort.NEWEST;
+        }
+    }
+
+    public boolean isDefault() {
+        return minPrice == null && maxPrice == null && caughtFrom == null && caughtTo == null
+                && sort == FishSort.NEWEST;
+    }
+}
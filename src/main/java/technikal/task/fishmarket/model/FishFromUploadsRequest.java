@@ -0,0 +1,14 @@
+package technikal.task.fishmarket.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Creates a fish from photos sent through completed chunked uploads, given by their ids.
+ */
+public record FishFromUploadsRequest(@NotEmpty(message = "потрібна назва рибки") String name,
+                                     @Min(0) double price,
+                                     @NotEmpty @Size(max = 3) List<String> uploads) {
+}
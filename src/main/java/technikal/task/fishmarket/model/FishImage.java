@@ -0,0 +1,69 @@
+package technikal.task.fishmarket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "fish_image")
+@Getter
+@Setter
+public class FishImage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fish_image_id")
+    @TableGenerator(name = "fish_image_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "fish_image", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "fish_id", nullable = false)
+    private Fish fish;
+
+    @Column(name = "sort_order", nullable = false)
+    private int sortOrder;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    /**
+     * Filled in asynchronously after upload; null until the rendition exists or when the original is already smaller.
+     */
+    @Column(name = "thumbnail_file_name")
+    private String thumbnailFileName;
+
+    @Column(name = "medium_file_name")
+    private String mediumFileName;
+
+    /**
+     * The upload as it was received, when it was re-encoded on the way in and originals are kept; null otherwise.
+     */
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    /**
+     * A PNG data URI of a few pixels, shown inline in the catalog until the image itself loads; null for images
+     * ImageIO cannot decode and for rows from before placeholders were computed.
+     */
+    @Column(name = "placeholder", length = 512)
+    private String placeholder;
+}
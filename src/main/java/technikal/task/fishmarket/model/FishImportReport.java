@@ -0,0 +1,15 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many manifest rows were read and saved, and why the others were skipped.
+ */
+public record FishImportReport(int rows, int imported, List<RowError> errors) {
+
+    /**
+     * {@code line} is the manifest line the row starts on (the header is line 1).
+     */
+    public record RowError(int line, String message) {
+    }
+}
@@ -0,0 +1,19 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One keyset page of the catalog, newest first.
+ * {@code nextCursor} is passed back as {@code before}, {@code prevCursor} as {@code after}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FishPage {
+
+    private final List<Fish> items;
+    private final int size;
+    private final Long prevCursor;
+    private final Long nextCursor;
+}
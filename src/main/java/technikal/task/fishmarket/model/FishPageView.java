@@ -0,0 +1,14 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+
+/**
+ * JSON form of {@link FishPage}: {@code nextCursor} is passed back as {@code before}, {@code prevCursor} as {@code after}.
+ */
+public record FishPageView(List<FishView> items, int size, Long prevCursor, Long nextCursor) {
+
+    public static FishPageView of(FishPage page) {
+        return new FishPageView(page.getItems().stream().map(FishView::of).toList(),
+                page.getSize(), page.getPrevCursor(), page.getNextCursor());
+    }
+}
@@ -0,0 +1,27 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One page of name search results, best match first; {@code page} is zero-based.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FishSearchPage {
+
+    private final String query;
+    private final List<Fish> items;
+    private final int page;
+    private final int size;
+    private final int total;
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean hasNext() {
+        return (long) (page + 1) * size < total;
+    }
+}
@@ -0,0 +1,14 @@
+package technikal.task.fishmarket.model;
+
+import java.util.List;
+
+/**
+ * JSON form of {@link FishSearchPage}.
+ */
+public record FishSearchView(String query, List<FishView> items, int page, int size, int total) {
+
+    public static FishSearchView of(FishSearchPage page) {
+        return new FishSearchView(page.getQuery(), page.getItems().stream().map(FishView::of).toList(),
+                page.getPage(), page.getSize(), page.getTotal());
+    }
+}
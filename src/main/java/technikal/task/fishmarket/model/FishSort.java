@@ -0,0 +1,20 @@
+package technikal.task.fishmarket.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Catalog sort orders. Ties are broken by {@code id} in the same direction, which keeps keyset pages stable.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum FishSort {
+
+    NEWEST("Спершу нові"),
+    PRICE_ASC("Спершу дешевші"),
+    PRICE_DESC("Спершу дорожчі"),
+    CAUGHT_DESC("Спершу свіжий вилов"),
+    CAUGHT_ASC("Спершу давній вилов");
+
+    private final String label;
+}
@@ -0,0 +1,25 @@
+package technikal.task.fishmarket.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JSON projection of a fish for the {@code /api/fish} endpoints; detached from JPA so it can be built
+ * either from an entity or straight from a JDBC row.
+ */
+public record FishView(Long id, String name, double price, Date catchDate, List<Image> images) {
+
+    public static FishView of(Fish fish) {
+        return new FishView(fish.getId(), fish.getName(), fish.getPrice(), fish.getCatchDate(),
+                fish.getImages().stream().map(Image::of).toList());
+    }
+
+    public record Image(String fileName, String thumbnailFileName, String mediumFileName,
+                        Integer width, Integer height, Long sizeBytes) {
+
+        static Image of(FishImage image) {
+            return new Image(image.getFileName(), image.getThumbnailFileName(), image.getMediumFileName(),
+                    image.getWidth(), image.getHeight(), image.getSizeBytes());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package technikal.task.fishmarket.profiling;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * One in-process Flight Recorder recording at a time: started and stopped from {@code /admin/jfr}, dumped for JDK
+ * Mission Control, or read back into a per-request breakdown of the application's events. The JDK's {@code default}
+ * settings keep the overhead around one percent; {@code profile} adds allocation and lock sampling.
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+    public static final List<String> SETTINGS = List.of("default", "profile");
+
+    private static final String PREFIX = "fishmarket.";
+    private static final String PHASE_DATABASE = "database";
+    private static final String PHASE_IMAGE_IO = "imageIo";
+    private static final String PHASE_TEMPLATE = "template";
+    private static final String PHASE_PASSWORD = "passwordHash";
+    private static final String PHASE_OTHER = "other";
+
+    private final long maxSizeBytes;
+    private Recording recording;
+    private String recordingSettings;
+
+    public FlightRecorderService(@Value("${fishmarket.jfr.max-size-mb:250}") long maxSizeMb) {
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    public record RecordingStatus(long id, String state, String settings, Instant startTime, Instant stopTime,
+                                  long sizeBytes) {
+    }
+
+    public synchronized Optional<RecordingStatus> status() {
+        return Optional.ofNullable(recording).map(this::statusOf);
+    }
+
+    /**
+     * Starts a recording unless one is running; a stopped one is discarded. Data older than {@code maxAge} is dropped.
+     */
+    public synchronized Optional<RecordingStatus> start(String settings, Duration maxAge) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return Optional.empty();
+        }
+        close();
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName("fishmarket");
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSizeBytes);
+        for (Class<? extends ProfilingEvent> type : List.of(RequestEvent.class, JdbcEvent.class, ImageIoEvent.class,
+                TemplateRenderEvent.class, PasswordHashEvent.class)) {
+            started.enable(type).withoutStackTrace().withThreshold(Duration.ZERO);
+        }
+        started.start();
+        recording = started;
+        recordingSettings = settings;
+        log.info("Started flight recording {} with {} settings", started.getId(), settings);
+        return Optional.of(statusOf(started));
+    }
+
+    public synchronized Optional<RecordingStatus> stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return Optional.empty();
+        }
+        recording.stop();
+        log.info("Stopped flight recording {}", recording.getId());
+        return Optional.of(statusOf(recording));
+    }
+
+    /**
+     * Writes what has been recorded so far to {@code target}; false when there is no recording.
+     */
+    public synchronized boolean dump(Path target) throws IOException {
+        if (recording == null || !(recording.getState() == RecordingState.RUNNING
+                || recording.getState() == RecordingState.STOPPED)) {
+            return false;
+        }
+        recording.dump(target);
+        return true;
+    }
+
+    /**
+     * The {@code limit} slowest requests of the recording, each split into phases; empty when there is no recording.
+     */
+    public Optional<List<RequestBreakdown>> slowestRequests(int limit) throws IOException {
+        Path file = Files.createTempFile("fishmarket-", ".jfr");
+        try {
+            if (!dump(file)) {
+                return Optional.empty();
+            }
+            return Optional.of(summarize(file, limit));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static List<RequestBreakdown> summarize(Path file, int limit) throws IOException {
+        Map<Long, RequestEvents> requests = new HashMap<>();
+        try (RecordingFile events = new RecordingFile(file)) {
+            while (events.hasMoreEvents()) {
+                RecordedEvent event = events.readEvent();
+                if (event.getEventType().getName().startsWith(PREFIX) && event.getLong("requestId") != 0) {
+                    requests.computeIfAbsent(event.getLong("requestId"), id -> new RequestEvents()).add(event);
+                }
+            }
+        }
+        return requests.entrySet().stream()
+                .filter(entry -> entry.getValue().request != null)
+                .map(entry -> entry.getValue().breakdown(entry.getKey()))
+                .sorted(Comparator.comparingDouble(RequestBreakdown::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private RecordingStatus statusOf(Recording current) {
+        return new RecordingStatus(current.getId(), current.getState().name(), recordingSettings,
+                current.getStartTime(), current.getStopTime(), current.getSize());
+    }
+
+    /**
+     * The events of one request. They arrive grouped by thread buffer rather than in time order,
+     * so nesting (queries run while rendering a template) is resolved once all of them are read.
+     */
+    private static final class RequestEvents {
+
+        private RecordedEvent request;
+        private final List<RecordedEvent> jdbc = new ArrayList<>();
+        private final List<RecordedEvent> templates = new ArrayList<>();
+        private Duration imageIo = Duration.ZERO;
+        private Duration passwordHash = Duration.ZERO;
+
+        private void add(RecordedEvent event) {
+            switch (event.getEventType().getName()) {
+                case RequestEvent.NAME -> request = event;
+                case JdbcEvent.NAME -> jdbc.add(event);
+                case TemplateRenderEvent.NAME -> templates.add(event);
+                case ImageIoEvent.NAME -> imageIo = imageIo.plus(event.getDuration());
+                case PasswordHashEvent.NAME -> passwordHash = passwordHash.plus(event.getDuration());
+                default -> {
+                }
+            }
+        }
+
+        private RequestBreakdown breakdown(long requestId) {
+            Duration database = Duration.ZERO;
+            Duration nestedDatabase = Duration.ZERO;
+            for (RecordedEvent statement : jdbc) {
+                database = database.plus(statement.getDuration());
+                if (templates.stream().anyMatch(template -> contains(template, statement))) {
+                    nestedDatabase = nestedDatabase.plus(statement.getDuration());
+                }
+            }
+            Duration template = templates.stream()
+                    .map(RecordedEvent::getDuration)
+                    .reduce(Duration.ZERO, Duration::plus)
+                    .minus(nestedDatabase);
+            Duration total = request.getDuration();
+            Duration other = total.minus(database).minus(template).minus(imageIo).minus(passwordHash);
+
+            Map<String, Double> phases = new LinkedHashMap<>();
+            phases.put(PHASE_DATABASE, millis(database));
+            phases.put(PHASE_IMAGE_IO, millis(imageIo));
+            phases.put(PHASE_TEMPLATE, millis(template));
+            phases.put(PHASE_PASSWORD, millis(passwordHash));
+            phases.put(PHASE_OTHER, millis(other.isNegative() ? Duration.ZERO : other));
+            return new RequestBreakdown(requestId, request.getStartTime(), request.getString("method"),
+                    request.getString("uri"), request.getInt("status"), millis(total), phases,
+                    (int) jdbc.stream().filter(event -> !"acquire".equals(event.getString("operation"))).count());
+        }
+
+        private static boolean contains(RecordedEvent outer, RecordedEvent inner) {
+            return !inner.getStartTime().isBefore(outer.getStartTime()) && !inner.getEndTime().isAfter(outer.getEndTime());
+        }
+
+        private static double millis(Duration duration) {
+            return duration.toNanos() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name(ImageIoEvent.NAME)
+@Label("Image I/O")
+@Description("Writing an upload into the image store or deleting an image file")
+@Setter
+public class ImageIoEvent extends ProfilingEvent {
+
+    public static final String NAME = "fishmarket.ImageIo";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("File Name")
+    private String fileName;
+
+    @Label("Size")
+    @DataAmount
+    private long sizeBytes;
+
+    public ImageIoEvent(String operation) {
+        this.operation = operation;
+    }
+}
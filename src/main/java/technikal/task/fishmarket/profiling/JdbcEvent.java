@@ -0,0 +1,16 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(JdbcEvent.NAME)
+@Label("JDBC")
+@Description("Waiting for a pooled connection, executing a statement or a batch")
+public class JdbcEvent extends ProfilingEvent {
+
+    public static final String NAME = "fishmarket.Jdbc";
+
+    @Label("Operation")
+    String operation;
+}
@@ -0,0 +1,60 @@
+package technikal.task.fishmarket.profiling;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Emits a {@link JdbcEvent} for each connection acquisition, statement execution and batch of a Hibernate session.
+ * Hibernate creates one per session ({@code hibernate.session.events.auto}), so no state is shared between threads.
+ */
+public class JdbcEventListener implements SessionEventListener {
+
+    private transient JdbcEvent acquisition;
+    private transient JdbcEvent execution;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisition = start("acquire");
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        acquisition = finish(acquisition);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        execution = start("execute");
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        execution = finish(execution);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        execution = start("batch");
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        execution = finish(execution);
+    }
+
+    private static JdbcEvent start(String operation) {
+        JdbcEvent event = new JdbcEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    private static JdbcEvent finish(JdbcEvent event) {
+        if (event != null) {
+            event.finish();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(PasswordHashEvent.NAME)
+@Label("Password Hashing")
+@Description("BCrypt work of a form login or of an HTTP Basic request")
+public class PasswordHashEvent extends ProfilingEvent {
+
+    public static final String NAME = "fishmarket.PasswordHash";
+
+    @Label("Operation")
+    String operation;
+}
@@ -0,0 +1,30 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the application's JFR events. Every event carries the id of the HTTP request it ran for (0 for
+ * background work), so a recording can be broken down per request. Stack traces are off: they would cost more
+ * than the events themselves and the phase already says where the time went.
+ */
+@Category("Fishmarket")
+@StackTrace(false)
+public abstract class ProfilingEvent extends Event {
+
+    @Label("Request Id")
+    long requestId;
+
+    /**
+     * Ends the event and commits it if the recording wants it (enabled and above its threshold).
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            requestId = RequestProfiling.currentRequestId();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package technikal.task.fishmarket.profiling;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Wraps the real encoder in {@link PasswordHashEvent}s. HTTP Basic clients pay for a BCrypt check on every request,
+ * which is easy to miss without this.
+ */
+public class ProfilingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public ProfilingPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = start("encode");
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = start("matches");
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static PasswordHashEvent start(String operation) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,13 @@
+package technikal.task.fishmarket.profiling;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Where one recorded request spent its time, in milliseconds per phase: {@code database} (pool waits and statement
+ * executions), {@code imageIo}, {@code template} (without the queries it triggered), {@code passwordHash} and
+ * {@code other} for whatever is left, mostly our own code and the network.
+ */
+public record RequestBreakdown(long requestId, Instant start, String method, String uri, int status,
+                               double totalMs, Map<String, Double> phasesMs, int statements) {
+}
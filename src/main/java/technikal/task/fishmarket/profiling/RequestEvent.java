@@ -0,0 +1,22 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(RequestEvent.NAME)
+@Label("HTTP Request")
+@Description("One request from the first filter to the last byte of the response")
+public class RequestEvent extends ProfilingEvent {
+
+    public static final String NAME = "fishmarket.Request";
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status")
+    int status;
+}
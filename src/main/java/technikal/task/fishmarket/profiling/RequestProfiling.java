@@ -0,0 +1,31 @@
+package technikal.task.fishmarket.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The id of the request the current thread is serving, set by {@link RequestProfilingFilter} while a recording
+ * is running and read by every {@link ProfilingEvent} it commits.
+ */
+public final class RequestProfiling {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private RequestProfiling() {
+    }
+
+    public static long currentRequestId() {
+        Long id = CURRENT.get();
+        return id == null ? 0 : id;
+    }
+
+    static long begin() {
+        long id = NEXT_ID.incrementAndGet();
+        CURRENT.set(id);
+        return id;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,41 @@
+package technikal.task.fishmarket.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Emits a {@link RequestEvent} around the whole filter chain, Spring Security included, and tags the events
+ * emitted meanwhile with the request's id. Without a running recording it only checks whether the event is enabled.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestProfiling.begin();
+        event.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            event.method = request.getMethod();
+            event.uri = request.getRequestURI();
+            event.status = response.getStatus();
+            event.finish();
+            RequestProfiling.end();
+        }
+    }
+}
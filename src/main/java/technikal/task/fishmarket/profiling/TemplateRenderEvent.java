@@ -0,0 +1,16 @@
+package technikal.task.fishmarket.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(TemplateRenderEvent.NAME)
+@Label("Template Rendering")
+@Description("Rendering a Thymeleaf view, including any lazy loading it triggers")
+public class TemplateRenderEvent extends ProfilingEvent {
+
+    public static final String NAME = "fishmarket.TemplateRender";
+
+    @Label("View")
+    String view;
+}
@@ -0,0 +1,39 @@
+package technikal.task.fishmarket.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Times view rendering: it happens between {@code postHandle}, which only runs for handlers that return a view,
+ * and {@code afterCompletion}. JSON handlers have no {@link ModelAndView} and are skipped.
+ */
+public class TemplateRenderInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = TemplateRenderInterceptor.class.getName() + ".event";
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || modelAndView.getViewName() == null
+                || modelAndView.getViewName().startsWith("redirect:")) {
+            return;
+        }
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        if (event.isEnabled()) {
+            event.view = modelAndView.getViewName();
+            event.begin();
+            request.setAttribute(EVENT_ATTRIBUTE, event);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(EVENT_ATTRIBUTE) instanceof TemplateRenderEvent event) {
+            request.removeAttribute(EVENT_ATTRIBUTE);
+            event.finish();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package technikal.task.fishmarket.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+import technikal.task.fishmarket.model.FishView;
+
+/**
+ * Reads the whole catalog for export with plain JDBC: one forward-only, read-only query whose rows are read as
+ * they arrive, so memory use does not grow with the table. On MySQL the result set is streamed row by row (fetch
+ * size {@link Integer#MIN_VALUE}, Connector/J's switch for this one statement); other databases fetch
+ * {@code fetchSize} rows at a time. No entities are created and nothing is held in a persistence context.
+ */
+@Repository
+public class FishExportRepository {
+
+    private static final String EXPORT_QUERY = """
+            SELECT f.id, f.name, f.price, f.catch_date,
+                   i.file_name, i.thumbnail_file_name, i.medium_file_name, i.width, i.height, i.size_bytes
+            FROM fish f
+            LEFT JOIN fish_image i ON i.fish_id = f.id
+            WHERE f.deleted_at IS NULL
+            ORDER BY f.id, i.sort_order""";
+
+    private static final String MYSQL = "MySQL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public FishExportRepository(DataSource dataSource, @Value("${fishmarket.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Passes every fish, with its images in display order, to {@code consumer} as the rows arrive.
+     */
+    public void forEachFish(Consumer<FishView> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // streaming only concerns this statement; the connection goes back to the pool as configured
+            statement.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : fetchSize);
+            return statement;
+        }, new FishRowAssembler(consumer));
+    }
+
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return MYSQL.equals(connection.getMetaData().getDatabaseProductName());
+    }
+
+    /**
+     * The join yields one row per image; consecutive rows of the same fish are folded into one view.
+     */
+    private static final class FishRowAssembler implements ResultSetExtractor<Void> {
+
+        private final Consumer<FishView> consumer;
+        private FishView current;
+        private List<FishView.Image> images;
+
+        private FishRowAssembler(Consumer<FishView> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Void extractData(ResultSet rs) throws SQLException {
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                if (current == null || current.id() != id) {
+                    emit();
+                    images = new ArrayList<>();
+                    current = new FishView(id, rs.getString("name"), rs.getDouble("price"),
+                            rs.getTimestamp("catch_date"), images);
+                }
+                String fileName = rs.getString("file_name");
+                if (fileName != null) {
+                    images.add(new FishView.Image(fileName, rs.getString("thumbnail_file_name"),
+                            rs.getString("medium_file_name"), rs.getObject("width", Integer.class),
+                            rs.getObject("height", Integer.class), rs.getObject("size_bytes", Long.class)));
+                }
+            }
+            emit();
+            return null;
+        }
+
+        private void emit() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package technikal.task.fishmarket.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import technikal.task.fishmarket.config.CacheConfig;
+import technikal.task.fishmarket.model.FishImage;
+
+public interface FishImageRepository extends JpaRepository<FishImage, Long> {
+
+    boolean existsByFileName(String fileName);
+
+    /**
+     * Whether any row uses the file, as its stored image, one of its renditions or its kept original.
+     */
+    @Query("select count(i) > 0 from FishImage i"
+            + " where i.fileName = :name or i.thumbnailFileName = :name or i.mediumFileName = :name"
+            + " or i.originalFileName = :name")
+    boolean isReferenced(@Param("name") String fileName);
+
+    /**
+     * Rows that use any of the files, as stored images, renditions or kept originals; one indexed lookup for a
+     * whole batch of names.
+     */
+    @Query("select i from FishImage i"
+            + " where i.fileName in :names or i.thumbnailFileName in :names or i.mediumFileName in :names"
+            + " or i.originalFileName in :names")
+    List<FishImage> findReferencing(@Param("names") Collection<String> fileNames);
+
+    /**
+     * Cached catalog entries still point at the original, so they are dropped once a rendition is recorded.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.FISH_PAGES_CACHE, CacheConfig.FISH_CACHE, CacheConfig.CATALOG_HTML_CACHE},
+            allEntries = true)
+    @Transactional
+    @Modifying
+    @Query("update FishImage i set i.thumbnailFileName = :thumbnail, i.mediumFileName = :medium where i.id = :id")
+    int updateRenditions(@Param("id") Long id,
+                         @Param("thumbnail") String thumbnailFileName,
+                         @Param("medium") String mediumFileName);
+}
@@ -1,7 +1,63 @@
 package technikal.task.fishmarket.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishImage;
 
-public interface FishRepository extends JpaRepository<Fish, Long> { }
+public interface FishRepository extends JpaRepository<Fish, Long>, JpaSpecificationExecutor<Fish> {
+
+    List<Fish> findAllByOrderByIdDesc(Limit limit);
+
+    List<Fish> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    List<Fish> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    boolean existsByIdGreaterThan(Long id);
+
+    boolean existsByIdLessThan(Long id);
+
+    /**
+     * Ids and names only, for building the name search index without loading entities.
+     */
+    @Query("select f.id as id, f.name as name from Fish f")
+    List<FishName> findAllNames();
+
+    /**
+     * Soft-deletes the fish in one statement, without loading them; returns how many were still there.
+     */
+    @Modifying
+    @Query("update Fish f set f.deletedAt = :deletedAt where f.id in :ids and f.deletedAt is null")
+    int markDeleted(@Param("ids") Collection<Long> ids, @Param("deletedAt") Date deletedAt);
+
+    /**
+     * Soft-deleted fish due for purging, oldest first. Native, as the entity restriction hides these rows.
+     */
+    @Query(value = "select id from fish where deleted_at < :cutoff order by deleted_at limit :limit", nativeQuery = true)
+    List<Long> findDeletedBefore(@Param("cutoff") Date cutoff, @Param("limit") int limit);
+
+    @Query("select i from FishImage i where i.fish.id in :fishIds")
+    List<FishImage> findImagesByFishIds(@Param("fishIds") Collection<Long> fishIds);
+
+    /**
+     * Removes soft-deleted rows for good; their {@code fish_image} rows go with them by {@code ON DELETE CASCADE}.
+     */
+    @Modifying
+    @Query(value = "delete from fish where id in (:ids) and deleted_at is not null", nativeQuery = true)
+    int purge(@Param("ids") Collection<Long> ids);
+
+    interface FishName {
+
+        Long getId();
+
+        String getName();
+    }
+}
@@ -0,0 +1,106 @@
+package technikal.task.fishmarket.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishSort;
+
+/**
+ * Criteria for the filtered catalog. Every sort is {@code (key, id)} in one direction, matching the
+ * {@code idx_fish_price_id} and {@code idx_fish_catch_date_id} indexes, and pages continue from a cursor row
+ * with {@code key >= :v AND (key > :v OR id > :id)}: the leading bound gives MySQL an index range to start from,
+ * which a plain {@code OR} of the two cases would not.
+ */
+public final class FishSpecifications {
+
+    private static final String ID = "id";
+    private static final String PRICE = "price";
+    private static final String CATCH_DATE = "catchDate";
+
+    private FishSpecifications() {
+    }
+
+    public static Specification<Fish> matching(FishFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            Path<Double> price = root.get(PRICE);
+            Path<Date> catchDate = root.get(CATCH_DATE);
+            if (filter.minPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(price, filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(price, filter.maxPrice()));
+            }
+            if (filter.caughtFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(catchDate, startOfDay(filter.caughtFrom())));
+            }
+            if (filter.caughtTo() != null) {
+                predicates.add(cb.lessThan(catchDate, startOfDay(filter.caughtTo().plusDays(1))));
+            }
+            if (CATCH_DATE.equals(key(filter.sort()))) {
+                // a fish without a catch date has no place in a date ordering
+                predicates.add(cb.isNotNull(catchDate));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Rows strictly after {@code cursor} in {@code sort} order, or strictly before it when {@code reverse} is set.
+     */
+    public static Specification<Fish> beyond(Fish cursor, FishSort sort, boolean reverse) {
+        boolean ascending = ascending(sort) != reverse;
+        return (root, query, cb) -> {
+            Path<Long> id = root.get(ID);
+            Predicate afterId = ascending ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+            String key = key(sort);
+            if (key == null) {
+                return afterId;
+            }
+            return PRICE.equals(key)
+                    ? keyset(cb, root, PRICE, cursor.getPrice(), ascending, afterId)
+                    : keyset(cb, root, CATCH_DATE, cursor.getCatchDate(), ascending, afterId);
+        };
+    }
+
+    public static Sort order(FishSort sort, boolean reverse) {
+        Sort.Direction direction = ascending(sort) != reverse ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String key = key(sort);
+        return key == null ? Sort.by(direction, ID) : Sort.by(direction, key, ID);
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate keyset(CriteriaBuilder cb, Root<Fish> root,
+                                                                      String attribute, Y value, boolean ascending,
+                                                                      Predicate afterId) {
+        Path<Y> key = root.get(attribute);
+        return ascending
+                ? cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), afterId))
+                : cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), afterId));
+    }
+
+    private static String key(FishSort sort) {
+        return switch (sort) {
+            case NEWEST -> null;
+            case PRICE_ASC, PRICE_DESC -> PRICE;
+            case CAUGHT_ASC, CAUGHT_DESC -> CATCH_DATE;
+        };
+    }
+
+    private static boolean ascending(FishSort sort) {
+        return sort == FishSort.PRICE_ASC || sort == FishSort.CAUGHT_ASC;
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
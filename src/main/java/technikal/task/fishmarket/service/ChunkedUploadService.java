@@ -0,0 +1,343 @@
+package technikal.task.fishmarket.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import technikal.task.fishmarket.exception.ImageStorageException;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.exception.UploadNotFoundException;
+import technikal.task.fishmarket.model.ChunkedUploadRequest;
+import technikal.task.fishmarket.model.ChunkedUploadStatus;
+import technikal.task.fishmarket.model.FishImage;
+
+/**
+ * Resumable uploads for slow or flaky connections: a photo is sent as fixed-size chunks, each checked against
+ * its SHA-256 and staged on disk under {@code fishmarket.upload.staging-dir/<id>/}, so a dropped connection
+ * only costs the chunk in flight and a client picks up from {@link ChunkedUploadStatus#offset()}. Staging
+ * survives restarts; uploads idle for longer than {@code fishmarket.upload.staging-ttl-hours} are removed.
+ * <p>
+ * Once every chunk is there, {@link #assemble} streams the chunks in order through {@link FishUploadService}
+ * into {@link ImageStore}, where they are checked and stored like a photo of the create form.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    private static final String MANIFEST = "upload.properties";
+    private static final String CHUNK_SUFFIX = ".chunk";
+
+    private final FishUploadService fishUploadService;
+    private final Path stagingDir;
+    private final int chunkSize;
+    private final long maxImageBytes;
+    private final Duration ttl;
+    private final Set<String> assembling = ConcurrentHashMap.newKeySet();
+
+    public ChunkedUploadService(FishUploadService fishUploadService,
+                                @Value("${fishmarket.upload.staging-dir:public/upload-staging}") String stagingDir,
+                                @Value("${fishmarket.upload.chunk-size-kb:1024}") int chunkSizeKb,
+                                @Value("${fishmarket.upload.max-image-mb:20}") long maxImageMb,
+                                @Value("${fishmarket.upload.staging-ttl-hours:24}") long ttlHours) {
+        this.fishUploadService = fishUploadService;
+        this.stagingDir = Paths.get(stagingDir);
+        this.chunkSize = chunkSizeKb * 1024;
+        this.maxImageBytes = maxImageMb * 1024 * 1024;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    public ChunkedUploadStatus start(ChunkedUploadRequest request) {
+        if (request.size() <= 0) {
+            throw new InvalidFishDataException("Порожнє зображення не дозволено");
+        }
+        if (request.size() > maxImageBytes) {
+            throw new InvalidFishDataException("Фото " + request.fileName() + " більше за "
+                    + maxImageBytes / (1024 * 1024) + " МБ");
+        }
+        removeExpired();
+        Upload upload = new Upload(UUID.randomUUID().toString(), request.fileName(), request.size(), chunkSize,
+                request.sha256() == null ? null : request.sha256().toLowerCase(Locale.ROOT));
+        try {
+            Path dir = stagingDir.resolve(upload.id());
+            Files.createDirectories(dir);
+            Properties manifest = new Properties();
+            manifest.setProperty("fileName", upload.fileName());
+            manifest.setProperty("size", Long.toString(upload.size()));
+            manifest.setProperty("chunkSize", Integer.toString(upload.chunkSize()));
+            if (upload.sha256() != null) {
+                manifest.setProperty("sha256", upload.sha256());
+            }
+            Path temp = dir.resolve("." + MANIFEST + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                manifest.store(out, null);
+            }
+            Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new ImageStorageException("Не вдалося почати завантаження", ex);
+        }
+        return status(upload);
+    }
+
+    public ChunkedUploadStatus status(String id) {
+        return status(load(id));
+    }
+
+    /**
+     * Stages chunk {@code index} after checking its length and its SHA-256 against {@code sha256}. The chunk is
+     * written to a temp file and renamed into place, so a connection dropped mid-chunk leaves nothing behind and
+     * sending a chunk again simply replaces it.
+     */
+    public ChunkedUploadStatus putChunk(String id, int index, String sha256, InputStream body) {
+        Upload upload = load(id);
+        if (index < 0 || index >= upload.chunkCount()) {
+            throw new InvalidFishDataException("Частини " + index + " немає: завантаження має "
+                    + upload.chunkCount() + " частин");
+        }
+        if (sha256 == null || sha256.isBlank()) {
+            throw new InvalidFishDataException("Не передано контрольну суму частини " + index);
+        }
+        Path dir = stagingDir.resolve(upload.id());
+        Path temp = dir.resolve("." + index + "-" + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long expected = upload.chunkLength(index);
+            long length;
+            try (InputStream in = new DigestInputStream(body, digest); OutputStream out = Files.newOutputStream(temp)) {
+                length = copy(in, out, expected + 1);
+            }
+            if (length != expected) {
+                throw new InvalidFishDataException("Частина " + index + " має " + length + " байт замість " + expected);
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(sha256.trim())) {
+                throw new InvalidFishDataException("Контрольна сума частини " + index + " не збігається");
+            }
+            Files.move(temp, dir.resolve(index + CHUNK_SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException ex) {
+            throw new UploadNotFoundException(id);
+        } catch (IOException ex) {
+            throw new ImageStorageException("Не вдалося зберегти частину " + index, ex);
+        } finally {
+            deleteQuietly(temp);
+        }
+        return status(upload);
+    }
+
+    /**
+     * Stores the photos of completed uploads in {@link ImageStore} and returns them with pending references,
+     * ready for {@code FishService.addFish}. The staging stays until {@link #finish} so a failed save can be
+     * retried; if one photo fails, the ones stored before it are discarded.
+     */
+    public List<FishImage> assemble(List<String> ids) {
+        if (ids.size() > FishService.MAX_IMAGES || ids.stream().distinct().count() != ids.size()) {
+            throw new InvalidFishDataException("Кількість зображень має бути від 1 до 3");
+        }
+        List<Upload> uploads = ids.stream().map(this::load).toList();
+        for (Upload upload : uploads) {
+            List<Integer> missing = missingChunks(upload);
+            if (!missing.isEmpty()) {
+                throw new InvalidFishDataException("Завантаження " + upload.id() + " не завершене, бракує частин "
+                        + missing);
+            }
+        }
+        List<String> claimed = new ArrayList<>();
+        List<FishImage> images = new ArrayList<>();
+        try {
+            for (Upload upload : uploads) {
+                if (!assembling.add(upload.id())) {
+                    throw new InvalidFishDataException("Завантаження " + upload.id() + " вже використовується");
+                }
+                claimed.add(upload.id());
+                images.add(assemble(upload));
+            }
+        } catch (RuntimeException ex) {
+            fishUploadService.discard(images);
+            throw ex;
+        } finally {
+            assembling.removeAll(claimed);
+        }
+        return images;
+    }
+
+    /**
+     * Removes the staging of uploads whose photos were saved, or that the client gave up on.
+     */
+    public void finish(List<String> ids) {
+        for (String id : ids) {
+            load(id);
+            deleteStaging(stagingDir.resolve(id));
+        }
+    }
+
+    private FishImage assemble(Upload upload) {
+        Path dir = stagingDir.resolve(upload.id());
+        Enumeration<InputStream> chunks = new Enumeration<>() {
+            private int next;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < upload.chunkCount();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return Files.newInputStream(dir.resolve(next++ + CHUNK_SUFFIX));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+        // SequenceInputStream opens each chunk when the previous one is used up and closes it after. The digest is
+        // of the bytes as uploaded: the stored image may have been re-encoded by ImageOptimizer.
+        MessageDigest digest = sha256();
+        FishImage image;
+        try (InputStream input = new DigestInputStream(new SequenceInputStream(chunks), digest)) {
+            image = fishUploadService.store(input, upload.fileName());
+        } catch (IOException | UncheckedIOException ex) {
+            throw new ImageStorageException("Не вдалося зібрати завантаження " + upload.id(), ex);
+        }
+        if (upload.sha256() != null && !upload.sha256().equals(HexFormat.of().formatHex(digest.digest()))) {
+            fishUploadService.discard(List.of(image));
+            throw new InvalidFishDataException("Контрольна сума файлу " + upload.fileName() + " не збігається");
+        }
+        return image;
+    }
+
+    private ChunkedUploadStatus status(Upload upload) {
+        List<Integer> missing = missingChunks(upload);
+        int acknowledged = missing.isEmpty() ? upload.chunkCount() : missing.get(0);
+        long offset = Math.min(upload.size(), (long) acknowledged * upload.chunkSize());
+        return new ChunkedUploadStatus(upload.id(), upload.fileName(), upload.size(), upload.chunkSize(),
+                upload.chunkCount(), offset, missing);
+    }
+
+    private List<Integer> missingChunks(Upload upload) {
+        Path dir = stagingDir.resolve(upload.id());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < upload.chunkCount(); i++) {
+            if (!Files.exists(dir.resolve(i + CHUNK_SUFFIX))) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private Upload load(String id) {
+        try {
+            // only names this service generated, so an id can never point outside the staging directory
+            UUID.fromString(id);
+        } catch (IllegalArgumentException ex) {
+            throw new UploadNotFoundException(id);
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(stagingDir.resolve(id).resolve(MANIFEST))) {
+            manifest.load(in);
+        } catch (NoSuchFileException ex) {
+            throw new UploadNotFoundException(id);
+        } catch (IOException ex) {
+            throw new ImageStorageException("Не вдалося прочитати завантаження " + id, ex);
+        }
+        return new Upload(id, manifest.getProperty("fileName"), Long.parseLong(manifest.getProperty("size")),
+                Integer.parseInt(manifest.getProperty("chunkSize")), manifest.getProperty("sha256"));
+    }
+
+    /**
+     * Drops uploads nothing was sent to for longer than the TTL; the directory's modification time moves with
+     * every chunk renamed into it.
+     */
+    void removeExpired() {
+        if (!Files.isDirectory(stagingDir)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(ttl);
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(stagingDir, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                boolean idle = Files.getLastModifiedTime(dir).toInstant().isBefore(cutoff);
+                if (idle && !assembling.contains(dir.getFileName().toString())) {
+                    deleteStaging(dir);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not clean up expired uploads in {}", stagingDir, ex);
+        }
+    }
+
+    /**
+     * Copies at most {@code limit} bytes, so a client sending more than the chunk cannot fill the disk.
+     */
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long copied = 0;
+        int read;
+        while (copied < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied))) >= 0) {
+            out.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    private static void deleteStaging(Path dir) {
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException ex) {
+            log.warn("Could not remove upload staging {}", dir, ex);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // a leftover dot-file is never read as a chunk and goes with its upload
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record Upload(String id, String fileName, long size, int chunkSize, String sha256) {
+
+        int chunkCount() {
+            return (int) ((size + chunkSize - 1) / chunkSize);
+        }
+
+        long chunkLength(int index) {
+            return Math.min(chunkSize, size - (long) index * chunkSize);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package technikal.task.fishmarket.service;
+
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import technikal.task.fishmarket.config.CacheConfig;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishImportReport;
+import technikal.task.fishmarket.model.FishImportReport.RowError;
+import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.service.ManifestReader.ManifestRow;
+
+/**
+ * Bulk import of fish from a CSV manifest and a ZIP of their images.
+ * Images are stored in parallel on {@code importExecutor}; rows are saved {@code batchSize} per transaction
+ * as JDBC batches. When a batch fails it is retried row by row, so one bad row only costs itself.
+ */
+@Slf4j
+@Service
+public class FishImportService {
+
+    private final FishRepository fishRepository;
+    private final ImageStore imageStore;
+    private final FishUploadService fishUploadService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final int batchSize;
+
+    public FishImportService(FishRepository fishRepository, ImageStore imageStore, FishUploadService fishUploadService,
+                             ApplicationEventPublisher eventPublisher, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ThreadPoolTaskExecutor importExecutor,
+                             @Value("${fishmarket.import.batch-size:500}") int batchSize) {
+        this.fishRepository = fishRepository;
+        this.imageStore = imageStore;
+        this.fishUploadService = fishUploadService;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.batchSize = batchSize;
+    }
+
+    @CacheEvict(cacheNames = {CacheConfig.FISH_PAGES_CACHE, CacheConfig.CATALOG_HTML_CACHE}, allEntries = true)
+    public FishImportReport importFish(MultipartFile manifest, MultipartFile archive) {
+        List<ManifestRow> rows = readManifest(manifest);
+        List<RowError> errors = new ArrayList<>();
+        List<String> storedFileNames = Collections.synchronizedList(new ArrayList<>());
+        Set<String> savedFileNames = new HashSet<>();
+        int imported = 0;
+        Path zipPath = null;
+        try {
+            zipPath = copyToTempFile(archive);
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                Set<String> failedImages = new HashSet<>();
+                Map<String, FishImage> images = storeImages(zip, rows, storedFileNames, failedImages);
+                List<ImportRow> valid = validate(rows, images, failedImages, errors);
+                for (int from = 0; from < valid.size(); from += batchSize) {
+                    imported += saveBatch(valid.subList(from, Math.min(from + batchSize, valid.size())),
+                            errors, savedFileNames);
+                }
+            }
+        } catch (IOException ex) {
+            throw new InvalidFishDataException("Не вдалося прочитати архів із зображеннями");
+        } finally {
+            cleanUp(storedFileNames, savedFileNames, zipPath);
+        }
+        errors.sort(Comparator.comparingInt(RowError::line));
+        return new FishImportReport(rows.size(), imported, errors);
+    }
+
+    /**
+     * Stores every image the manifest refers to once, in parallel. {@link ZipFile} allows concurrent
+     * reads of different entries; all tasks are joined before the archive is closed.
+     */
+    private Map<String, FishImage> storeImages(ZipFile zip, List<ManifestRow> rows, List<String> storedFileNames,
+                                               Set<String> failedImages) {
+        Map<String, CompletableFuture<FishImage>> tasks = new LinkedHashMap<>();
+        for (ManifestRow row : rows) {
+            for (String name : row.images()) {
+                ZipEntry entry = zip.getEntry(name);
+                if (entry != null && !entry.isDirectory() && !tasks.containsKey(name)) {
+                    tasks.put(name, CompletableFuture.supplyAsync(
+                            () -> storeImage(zip, entry, storedFileNames), importExecutor));
+                }
+            }
+        }
+        Map<String, FishImage> images = new HashMap<>();
+        tasks.forEach((name, task) -> {
+            try {
+                images.put(name, task.join());
+            } catch (CompletionException ex) {
+                log.warn("Failed to import image {}", name, ex.getCause());
+                failedImages.add(name);
+            }
+        });
+        return images;
+    }
+
+    /**
+     * Goes through the same checks as a form upload: the entry name decides nothing, the type is detected from
+     * the content and the size limit stops entries that inflate far beyond any real photo.
+     */
+    private FishImage storeImage(ZipFile zip, ZipEntry entry, List<String> storedFileNames) {
+        try (InputStream in = zip.getInputStream(entry)) {
+            FishImage image = fishUploadService.store(in, entry.getName());
+            storedFileNames.add(image.getFileName());
+            return image;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static List<ImportRow> validate(List<ManifestRow> rows, Map<String, FishImage> images,
+                                            Set<String> failedImages, List<RowError> errors) {
+        List<ImportRow> valid = new ArrayList<>();
+        for (ManifestRow row : rows) {
+            Double price = parsePrice(row.price());
+            String error = validationError(row, price, images, failedImages);
+            if (error != null) {
+                errors.add(new RowError(row.line(), error));
+            } else {
+                valid.add(new ImportRow(row.line(), row.name(), price, row.images().stream().map(images::get).toList()));
+            }
+        }
+        return valid;
+    }
+
+    private static String validationError(ManifestRow row, Double price, Map<String, FishImage> images,
+                                          Set<String> failedImages) {
+        if (row.name().isEmpty()) {
+            return "потрібна назва рибки";
+        }
+        if (price == null || price < 0) {
+            return "Неправильна ціна: " + row.price();
+        }
+        if (row.images().isEmpty() || row.images().size() > FishService.MAX_IMAGES) {
+            return "Кількість зображень має бути від 1 до 3";
+        }
+        for (String name : row.images()) {
+            if (failedImages.contains(name)) {
+                return "Не вдалося зберегти зображення " + name;
+            }
+            if (!images.containsKey(name)) {
+                return "Зображення " + name + " немає в архіві";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Accepts a decimal comma as well, since spreadsheets in Ukrainian locales export prices that way.
+     */
+    private static Double parsePrice(String price) {
+        try {
+            double value = Double.parseDouble(price.replace(',', '.'));
+            return Double.isFinite(value) ? value : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private int saveBatch(List<ImportRow> batch, List<RowError> errors, Set<String> savedFileNames) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+            batch.forEach(row -> markSaved(row, savedFileNames));
+            return batch.size();
+        } catch (RuntimeException ex) {
+            log.warn("Import batch of {} rows failed, retrying row by row", batch.size(), ex);
+        }
+        int saved = 0;
+        for (ImportRow row : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(List.of(row)));
+                markSaved(row, savedFileNames);
+                saved++;
+            } catch (RuntimeException ex) {
+                errors.add(new RowError(row.line(),
+                        "Не вдалося зберегти рибку: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage()));
+            }
+        }
+        return saved;
+    }
+
+    private void persist(List<ImportRow> rows) {
+        Date catchDate = new Date();
+        List<Fish> fishList = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            Fish fish = new Fish();
+            fish.setName(row.name());
+            fish.setPrice(row.price());
+            fish.setCatchDate(catchDate);
+            row.images().forEach(image -> fish.addImage(copyOf(image)));
+            fishList.add(fish);
+        }
+        fishRepository.saveAll(fishList);
+        // send the batched inserts now and detach the rows: the request's persistence context
+        // would otherwise keep every imported fish until the import ends
+        fishRepository.flush();
+        entityManager.clear();
+        fishList.forEach(fish -> eventPublisher.publishEvent(new FishCreatedEvent(fish.getId(), fish.getName(), fish.getImages())));
+    }
+
+    private static void markSaved(ImportRow row, Set<String> savedFileNames) {
+        row.images().forEach(image -> savedFileNames.add(image.getFileName()));
+    }
+
+    private static FishImage copyOf(FishImage image) {
+        FishImage copy = new FishImage();
+        copy.setFileName(image.getFileName());
+        copy.setContentHash(image.getContentHash());
+        copy.setSizeBytes(image.getSizeBytes());
+        copy.setWidth(image.getWidth());
+        copy.setHeight(image.getHeight());
+        copy.setPlaceholder(image.getPlaceholder());
+        copy.setOriginalFileName(image.getOriginalFileName());
+        return copy;
+    }
+
+    /**
+     * Drops the pending references taken while storing; files no saved row uses are removed again.
+     */
+    private void cleanUp(List<String> storedFileNames, Set<String> savedFileNames, Path zipPath) {
+        imageStore.release(storedFileNames);
+        storedFileNames.stream()
+                .distinct()
+                .filter(name -> !savedFileNames.contains(name))
+                .forEach(name -> {
+                    try {
+                        imageStore.deleteIfUnreferenced(name);
+                    } catch (RuntimeException ex) {
+                        log.warn("Failed to remove unused imported image {}", name, ex);
+                    }
+                });
+        if (zipPath != null) {
+            try {
+                Files.deleteIfExists(zipPath);
+            } catch (IOException ex) {
+                log.warn("Failed to delete import archive {}", zipPath, ex);
+            }
+        }
+    }
+
+    private static List<ManifestRow> readManifest(MultipartFile manifest) {
+        try (Reader reader = new InputStreamReader(manifest.getInputStream(), StandardCharsets.UTF_8)) {
+            return ManifestReader.read(reader);
+        } catch (IOException ex) {
+            throw new InvalidFishDataException("Не вдалося прочитати маніфест");
+        }
+    }
+
+    private static Path copyToTempFile(MultipartFile archive) throws IOException {
+        Path zipPath = Files.createTempFile("fish-import-", ".zip");
+        try (InputStream in = archive.getInputStream()) {
+            Files.copy(in, zipPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return zipPath;
+    }
+
+    private record ImportRow(int line, String name, double price, List<FishImage> images) {
+    }
+}
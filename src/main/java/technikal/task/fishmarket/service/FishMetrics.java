@@ -0,0 +1,119 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters of the catalog, scraped from {@code /actuator/prometheus}. Latency timers publish histogram
+ * buckets, so percentiles such as the upload p99 are computed in Prometheus across all instances.
+ */
+@Component
+public class FishMetrics {
+
+    public static final String FISH_ADD = "fishmarket.fish.add";
+    public static final String FISH_ADD_IMAGES = "fishmarket.fish.add.images";
+    public static final String IMAGE_IO = "fishmarket.images.io";
+    public static final String IMAGE_BYTES_WRITTEN = "fishmarket.images.written";
+    public static final String IMAGE_OPTIMIZE = "fishmarket.images.optimize";
+    public static final String IMAGE_BYTES_SAVED = "fishmarket.images.optimize.saved";
+    public static final String IMAGE_RENDITIONS = "fishmarket.images.renditions";
+    public static final String FISH_QUERY = "fishmarket.fish.query";
+    public static final String FISH_QUERY_ROWS = "fishmarket.fish.query.rows";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary imagesPerFish;
+    private final DistributionSummary bytesWritten;
+    private final DistributionSummary bytesSaved;
+
+    public FishMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.imagesPerFish = DistributionSummary.builder(FISH_ADD_IMAGES)
+                .description("Images uploaded with one fish")
+                .serviceLevelObjectives(1, 2, 3)
+                .register(registry);
+        this.bytesWritten = DistributionSummary.builder(IMAGE_BYTES_WRITTEN)
+                .description("Size of each stored upload")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesSaved = DistributionSummary.builder(IMAGE_BYTES_SAVED)
+                .description("Bytes saved on each re-encoded upload")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records one fish created through the form or the upload API, measured from reading its photos until
+     * {@code FishService.addFish} returned or failed; rejected forms are not counted.
+     */
+    public void fishAdded(Timer.Sample sample, int images, boolean committed) {
+        sample.stop(latency(FISH_ADD, "Time to create a fish, from storing its photos to the commit")
+                .tag("outcome", committed ? "committed" : "rolled_back")
+                .register(registry));
+        if (committed) {
+            imagesPerFish.record(images);
+        }
+    }
+
+    public void imageSaved(Timer.Sample sample, long sizeBytes) {
+        imageIo(sample, "save", true);
+        bytesWritten.record(sizeBytes);
+    }
+
+    /**
+     * Records one image file operation; {@code operation} is {@code save} or {@code delete}.
+     */
+    public void imageIo(Timer.Sample sample, String operation, boolean success) {
+        sample.stop(latency(IMAGE_IO, "Image file writes and deletes")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry));
+    }
+
+    /**
+     * Records one pass of {@link ImageOptimizer}; {@code outcome} is {@code reencoded}, {@code kept} (would not
+     * be smaller and has no metadata) or {@code skipped} (not a format it re-encodes).
+     */
+    public void imageOptimized(String outcome, long originalBytes, long storedBytes) {
+        registry.counter(IMAGE_OPTIMIZE, "outcome", outcome).increment();
+        if (storedBytes != originalBytes) {
+            bytesSaved.record(Math.max(0, originalBytes - storedBytes));
+        }
+    }
+
+    /**
+     * Counts one {@code ?w=} image request by where it was answered from: {@code memory}, {@code disk},
+     * {@code rendered}, {@code coalesced} (waited for a render already running) or {@code original}.
+     */
+    public void renditionServed(String source) {
+        registry.counter(IMAGE_RENDITIONS, "source", source).increment();
+    }
+
+    /**
+     * Records a catalog query that missed the cache; {@code query} is {@code page}, {@code filtered} or {@code search}.
+     */
+    public void queried(Timer.Sample sample, String query, int rows) {
+        sample.stop(latency(FISH_QUERY, "Catalog queries that reached the database")
+                .tag("query", query)
+                .register(registry));
+        DistributionSummary.builder(FISH_QUERY_ROWS)
+                .description("Fish returned by a catalog query")
+                .tag("query", query)
+                .register(registry)
+                .record(rows);
+    }
+
+    private static Timer.Builder latency(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,301 @@
+package technikal.task.fishmarket.service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishDeletedEvent;
+import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.repository.FishRepository.FishName;
+
+/**
+ * In-memory trigram index over fish names, so name search never scans the {@code fish} table.
+ * It is loaded from the database before the web server accepts requests and then follows committed
+ * creates and deletes. Each fish gets a dense slot number; posting lists hold slots in insertion order,
+ * and deleted slots are skipped until enough of them pile up to rebuild the lists.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FishNameIndex {
+
+    /**
+     * A fish matches when at least this share of the query trigrams occur in its name, which tolerates a typo or two.
+     */
+    private static final double MIN_SIMILARITY = 0.5;
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private final FishRepository fishRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private int slots;
+
+    public record Result(List<Long> ids, int total) {
+    }
+
+    @PostConstruct
+    void load() {
+        long start = System.nanoTime();
+        List<FishName> all = fishRepository.findAllNames();
+        lock.writeLock().lock();
+        try {
+            all.forEach(fish -> put(fish.getId(), fish.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} fish names in {} ms", all.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void onFishCreated(FishCreatedEvent event) {
+        add(event.fishId(), event.name());
+    }
+
+    @TransactionalEventListener
+    public void onFishDeleted(FishDeletedEvent event) {
+        remove(event.fishId());
+    }
+
+    public void add(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            put(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                names[slot] = null;
+            }
+            if (slots - slotById.size() > Math.max(COMPACT_THRESHOLD, slotById.size())) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of fish ids whose names match {@code query}. Names containing the query as typed come first,
+     * then the closest fuzzy matches; among equals shorter names and then newer fish win.
+     */
+    public Result search(String query, int page, int size) {
+        String normalized = normalize(query);
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            return new Result(List.of(), 0);
+        }
+        Set<String> grams = queryTrigrams(normalized);
+        int required = Math.max(1, (int) Math.ceil(grams.size() * MIN_SIMILARITY));
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) (page + 1) * size);
+
+        lock.readLock().lock();
+        try {
+            List<Postings> touched = new ArrayList<>(grams.size());
+            int touchedLength = 0;
+            for (String gram : grams) {
+                Postings list = postings.get(gram);
+                if (list != null) {
+                    touched.add(list);
+                    touchedLength += list.length;
+                }
+            }
+            // sized by the postings read, not by the catalog, so a search allocates in proportion to its matches
+            SlotCounts counts = new SlotCounts(touchedLength);
+            int[] candidates = new int[64];
+            int candidateCount = 0;
+            for (Postings list : touched) {
+                for (int i = 0; i < list.length; i++) {
+                    int slot = list.slots[i];
+                    if (counts.increment(slot) == required) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = slot;
+                    }
+                }
+            }
+            // the worst of the best `wanted` matches sits on top, ready to be dropped
+            PriorityQueue<Match> best = new PriorityQueue<>(Match.RANKING.reversed());
+            int total = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                int slot = candidates[i];
+                if (names[slot] == null) {
+                    continue;
+                }
+                total++;
+                Match match = new Match(ids[slot], names[slot].contains(normalized), counts.get(slot),
+                        names[slot].length());
+                if (best.size() < wanted) {
+                    best.add(match);
+                } else if (Match.RANKING.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(Match.RANKING);
+            int from = Math.min(ranked.size(), page * size);
+            return new Result(ranked.subList(from, ranked.size()).stream().map(Match::id).toList(), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Long id, String name) {
+        Integer existing = slotById.remove(id);
+        if (existing != null) {
+            names[existing] = null;
+        }
+        String normalized = normalize(name);
+        if (slots == ids.length) {
+            ids = Arrays.copyOf(ids, slots * 2);
+            names = Arrays.copyOf(names, slots * 2);
+        }
+        int slot = slots++;
+        ids[slot] = id;
+        names[slot] = normalized;
+        slotById.put(id, slot);
+        for (String gram : nameTrigrams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+    }
+
+    private void compact() {
+        long[] oldIds = ids;
+        String[] oldNames = names;
+        int oldSlots = slots;
+        slotById.clear();
+        postings.clear();
+        ids = new long[Math.max(1024, slots)];
+        names = new String[ids.length];
+        slots = 0;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            if (oldNames[slot] != null) {
+                put(oldIds[slot], oldNames[slot]);
+            }
+        }
+    }
+
+    /**
+     * Lower-cases and turns punctuation into single spaces, so "Короп (дзеркальний)" and "короп дзеркальний" index alike.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * Word boundaries are padded with a space, so a short query can still match the start of a word.
+     */
+    static Set<String> nameTrigrams(String normalized) {
+        return trigrams(" " + normalized + " ");
+    }
+
+    static Set<String> queryTrigrams(String normalized) {
+        return normalized.length() < 3 ? trigrams(" " + normalized) : trigrams(normalized);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private record Match(long id, boolean contains, int shared, int length) {
+
+        static final Comparator<Match> RANKING = Comparator.comparing(Match::contains).reversed()
+                .thenComparing(Comparator.comparingInt(Match::shared).reversed())
+                .thenComparingInt(Match::length)
+                .thenComparing(Comparator.comparingLong(Match::id).reversed());
+    }
+
+    /**
+     * Per-slot trigram counts of one search: an open-addressing map of primitive ints, at most half full for the
+     * given number of increments.
+     */
+    private static final class SlotCounts {
+
+        private final int[] keys;
+        private final int[] counts;
+        private final int mask;
+
+        private SlotCounts(int maxEntries) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+            keys = new int[capacity];
+            counts = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private int increment(int slot) {
+            int index = indexOf(slot);
+            keys[index] = slot + 1;
+            return ++counts[index];
+        }
+
+        private int get(int slot) {
+            return counts[indexOf(slot)];
+        }
+
+        /**
+         * Keys are stored as slot + 1, so 0 marks a free entry.
+         */
+        private int indexOf(int slot) {
+            int hash = slot * 0x9E3779B9;
+            int index = (hash ^ (hash >>> 16)) & mask;
+            while (keys[index] != 0 && keys[index] != slot + 1) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] slots = new int[4];
+        private int length;
+
+        private void add(int slot) {
+            if (length == slots.length) {
+                slots = Arrays.copyOf(slots, length * 2);
+            }
+            slots[length++] = slot;
+        }
+    }
+}
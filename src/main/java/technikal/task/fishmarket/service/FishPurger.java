@@ -0,0 +1,67 @@
+package technikal.task.fishmarket.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Physically removes soft-deleted fish in the background, so deleting many of them costs the request a single
+ * {@code UPDATE}. Fish deleted more than {@code fishmarket.purge.min-age-minutes} ago are purged in batches of
+ * {@code batch-size}, one transaction each with a {@code batch-pause-ms} pause between them; their image files
+ * follow once each batch commits.
+ */
+@Slf4j
+@Service
+public class FishPurger {
+
+    private final FishService fishService;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration minAge;
+
+    public FishPurger(FishService fishService,
+                      @Value("${fishmarket.purge.batch-size:500}") int batchSize,
+                      @Value("${fishmarket.purge.batch-pause-ms:200}") long batchPauseMs,
+                      @Value("${fishmarket.purge.min-age-minutes:10}") long minAgeMinutes) {
+        this.fishService = fishService;
+        this.batchSize = batchSize;
+        this.batchPause = Duration.ofMillis(batchPauseMs);
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${fishmarket.purge.interval-ms:60000}",
+            initialDelayString = "${fishmarket.purge.interval-ms:60000}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (RuntimeException ex) {
+            log.warn("Purging deleted fish failed", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Purges everything deleted before the cutoff and returns how many fish went.
+     */
+    public int purge() throws InterruptedException {
+        Date cutoff = Date.from(Instant.now().minus(minAge));
+        int total = 0;
+        int purged;
+        do {
+            purged = fishService.purgeDeleted(cutoff, batchSize);
+            total += purged;
+            if (purged == batchSize && !batchPause.isZero()) {
+                Thread.sleep(batchPause);
+            }
+        } while (purged == batchSize);
+        if (total > 0) {
+            log.info("Purged {} deleted fish", total);
+        }
+        return total;
+    }
+}
@@ -1,96 +1,353 @@
 package technikal.task.fishmarket.service;
 
-import java.io.InputStream;
-import java.nio.file.Files;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import technikal.task.fishmarket.config.CacheConfig;
 import technikal.task.fishmarket.exception.FishNotFoundException;
-import technikal.task.fishmarket.exception.ImageStorageException;
 import technikal.task.fishmarket.exception.InvalidFishDataException;
 import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishDeletedEvent;
 import technikal.task.fishmarket.model.FishDto;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSearchPage;
+import technikal.task.fishmarket.model.FishSort;
 import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.repository.FishSpecifications;
+import technikal.task.fishmarket.service.ImageStore.StoredImage;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FishService {
 
-    private static final String IMAGE_DIR = "public/images/";
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_IMAGES = 3;
+    public static final int DELETE_BATCH_SIZE = 500;
     private final FishRepository fishRepository;
+    private final ImageStore imageStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FishNameIndex fishNameIndex;
+    private final FishMetrics fishMetrics;
+    private final TaskExecutor imageDeleteExecutor;
 
-    public List<Fish> getAllFish() {
-        return fishRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
+    /**
+     * Returns one page of the catalog matching {@code filter}, in its sort order (newest first by default).
+     * Cursors are fish ids: pass {@code before} to move forward through the order and {@code after} to move back.
+     * Pages are cached with their images loaded, so a cached page renders without touching the database.
+     * {@code sync} hands the lookup to the cache, which is what lets it skip storing a page read across a write.
+     */
+    @Cacheable(cacheNames = CacheConfig.FISH_PAGES_CACHE, sync = true)
+    @Transactional(readOnly = true)
+    public FishPage getFishPage(FishFilter filter, Long before, Long after, Integer size) {
+        Timer.Sample sample = fishMetrics.start();
+        boolean filtered = filter != null && !filter.isDefault();
+        FishPage page = filtered
+                ? findFilteredPage(filter, before, after, normalizePageSize(size))
+                : findFishPage(before, after, size);
+        page.getItems().forEach(fish -> Hibernate.initialize(fish.getImages()));
+        fishMetrics.queried(sample, filtered ? "filtered" : "page", page.getItems().size());
+        return page;
     }
 
-    public void addFish(FishDto fishDto) {
-        List<MultipartFile> images = fishDto.getImageFiles();
-        if (images == null || images.isEmpty() || images.size() > 3) {
-            throw new InvalidFishDataException("Кількість зображень має бути від 1 до 3");
+    @Cacheable(cacheNames = CacheConfig.FISH_CACHE, key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public Fish getFish(Long id) {
+        Fish fish = fishRepository.findById(id)
+                .orElseThrow(() -> new FishNotFoundException(id));
+        Hibernate.initialize(fish.getImages());
+        return fish;
+    }
+
+    /**
+     * Finds fish by name through {@link FishNameIndex}; only the matching page is loaded from the database.
+     */
+    @Transactional(readOnly = true)
+    public FishSearchPage searchFish(String query, Integer page, Integer size) {
+        Timer.Sample sample = fishMetrics.start();
+        int pageSize = normalizePageSize(size);
+        int pageNumber = page == null || page < 0 ? 0 : page;
+        FishNameIndex.Result result = fishNameIndex.search(query, pageNumber, pageSize);
+        Map<Long, Fish> found = fishRepository.findAllById(result.ids()).stream()
+                .collect(Collectors.toMap(Fish::getId, Function.identity()));
+        List<Fish> items = result.ids().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+        items.forEach(fish -> Hibernate.initialize(fish.getImages()));
+        fishMetrics.queried(sample, "search", items.size());
+        return new FishSearchPage(query, items, pageNumber, pageSize, result.total());
+    }
+
+    private FishPage findFishPage(Long before, Long after, Integer size) {
+        int pageSize = normalizePageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+
+        if (after != null) {
+            List<Fish> rows = fishRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
+            if (rows.isEmpty()) {
+                return findFishPage(null, null, pageSize);
+            }
+            boolean hasNewer = rows.size() > pageSize;
+            List<Fish> items = new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageSize)));
+            Collections.reverse(items);
+            Long lastId = items.get(items.size() - 1).getId();
+            return new FishPage(items, pageSize,
+                    hasNewer ? items.get(0).getId() : null,
+                    fishRepository.existsByIdLessThan(lastId) ? lastId : null);
+        }
+
+        List<Fish> rows = before == null
+                ? fishRepository.findAllByOrderByIdDesc(limit)
+                : fishRepository.findByIdLessThanOrderByIdDesc(before, limit);
+        boolean hasOlder = rows.size() > pageSize;
+        List<Fish> items = rows.subList(0, Math.min(rows.size(), pageSize));
+        if (items.isEmpty()) {
+            return new FishPage(items, pageSize, null, null);
         }
+        Long firstId = items.get(0).getId();
+        return new FishPage(items, pageSize,
+                before != null && fishRepository.existsByIdGreaterThan(firstId) ? firstId : null,
+                hasOlder ? items.get(items.size() - 1).getId() : null);
+    }
 
-        List<String> storedFilenames = new ArrayList<>();
-        Date catchDate = new Date();
+    /**
+     * Keyset paging over {@link FishSpecifications}: the cursor row is loaded by id, so its sort key need not
+     * travel in the URL. A cursor that no longer exists starts over from the first page.
+     */
+    private FishPage findFilteredPage(FishFilter filter, Long before, Long after, int pageSize) {
+        Specification<Fish> matching = FishSpecifications.matching(filter);
+        FishSort sort = filter.sort();
 
-        for (int i = 0; i < images.size(); i++) {
-            MultipartFile image = images.get(i);
-            if (image == null || image.isEmpty()) {
-                throw new InvalidFishDataException("Порожнє зображення не дозволено");
+        if (after != null) {
+            Fish cursor = fishRepository.findById(after).orElse(null);
+            List<Fish> rows = cursor == null ? List.of()
+                    : findRows(matching.and(FishSpecifications.beyond(cursor, sort, true)), sort, true, pageSize + 1);
+            if (rows.isEmpty()) {
+                return findFilteredPage(filter, null, null, pageSize);
             }
-            String storageFileName = catchDate.getTime() + "_" + i + "_" + image.getOriginalFilename();
-            saveImage(image, storageFileName);
-            storedFilenames.add(storageFileName);
+            boolean hasPrevious = rows.size() > pageSize;
+            List<Fish> items = new ArrayList<>(rows.subList(0, Math.min(rows.size(), pageSize)));
+            Collections.reverse(items);
+            Fish last = items.get(items.size() - 1);
+            return new FishPage(items, pageSize,
+                    hasPrevious ? items.get(0).getId() : null,
+                    fishRepository.exists(matching.and(FishSpecifications.beyond(last, sort, false))) ? last.getId() : null);
+        }
+
+        Fish cursor = before == null ? null : fishRepository.findById(before).orElse(null);
+        Specification<Fish> spec = cursor == null ? matching : matching.and(FishSpecifications.beyond(cursor, sort, false));
+        List<Fish> rows = findRows(spec, sort, false, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<Fish> items = rows.subList(0, Math.min(rows.size(), pageSize));
+        if (items.isEmpty()) {
+            return new FishPage(items, pageSize, null, null);
+        }
+        Fish first = items.get(0);
+        return new FishPage(items, pageSize,
+                cursor != null && fishRepository.exists(matching.and(FishSpecifications.beyond(first, sort, true)))
+                        ? first.getId() : null,
+                hasNext ? items.get(items.size() - 1).getId() : null);
+    }
+
+    private List<Fish> findRows(Specification<Fish> spec, FishSort sort, boolean reverse, int limit) {
+        return fishRepository.findBy(spec, query -> query.sortBy(FishSpecifications.order(sort, reverse))
+                .limit(limit)
+                .all());
+    }
+
+    /**
+     * Saves a fish whose images {@link FishUploadService} or {@link ChunkedUploadService} already stored. Their
+     * pending references are released once the transaction commits. When this throws, the images are still the
+     * caller's, which discards them ({@link FishUploadService#discard}); that also covers a transaction that
+     * could not even be started.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.FISH_PAGES_CACHE, CacheConfig.CATALOG_HTML_CACHE}, allEntries = true)
+    @Transactional
+    public Fish addFish(FishDto fishDto, List<FishImage> storedImages) {
+        List<String> storedFileNames = storedImages.stream().map(FishImage::getFileName).toList();
+        afterCommit(() -> imageStore.release(storedFileNames));
+        if (storedImages.isEmpty() || storedImages.size() > MAX_IMAGES) {
+            throw new InvalidFishDataException("Кількість зображень має бути від 1 до 3");
         }
 
         Fish fish = new Fish();
-        fish.setCatchDate(catchDate);
-        fish.setImageFileNames(String.join(",", storedFilenames));
+        storedImages.forEach(fish::addImage);
+        saveFish(fish, fishDto);
+        return fish;
+    }
+
+    private void saveFish(Fish fish, FishDto fishDto) {
+        fish.setCatchDate(new Date());
         fish.setName(fishDto.getName());
         fish.setPrice(fishDto.getPrice());
         fishRepository.save(fish);
+        eventPublisher.publishEvent(new FishCreatedEvent(fish.getId(), fish.getName(), fish.getImages()));
     }
 
+    /**
+     * Soft-deletes one fish: it leaves the catalog at once, while its row and image files are removed later by
+     * {@link FishPurger}.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.FISH_PAGES_CACHE, CacheConfig.CATALOG_HTML_CACHE}, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.FISH_CACHE, key = "#id")
+    })
+    @Transactional
     public void deleteFish(Long id) {
-        Fish fish = fishRepository.findById(id)
-                .orElseThrow(() -> new FishNotFoundException(id));
+        if (fishRepository.markDeleted(List.of(id), new Date()) == 0) {
+            throw new FishNotFoundException(id);
+        }
+        eventPublisher.publishEvent(new FishDeletedEvent(id));
+    }
 
-        deleteImages(fish.getImageFileNames());
-        fishRepository.delete(fish);
+    /**
+     * Soft-deletes many fish with set-based updates of up to {@link #DELETE_BATCH_SIZE} ids each, instead of
+     * loading and deleting them one by one. Ids that are unknown or already deleted are skipped; returns how
+     * many fish were deleted.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.FISH_PAGES_CACHE, CacheConfig.FISH_CACHE, CacheConfig.CATALOG_HTML_CACHE},
+            allEntries = true)
+    @Transactional
+    public int deleteFish(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Date deletedAt = new Date();
+        int deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += DELETE_BATCH_SIZE) {
+            deleted += fishRepository.markDeleted(
+                    distinctIds.subList(from, Math.min(from + DELETE_BATCH_SIZE, distinctIds.size())), deletedAt);
+        }
+        distinctIds.forEach(id -> eventPublisher.publishEvent(new FishDeletedEvent(id)));
+        return deleted;
+    }
+
+    /**
+     * Removes up to {@code limit} fish soft-deleted before {@code cutoff}, rows and all; their image files are
+     * deleted once this commits. Returns how many rows went, so the caller knows whether to go on.
+     */
+    @Transactional
+    public int purgeDeleted(Date cutoff, int limit) {
+        List<Long> ids = fishRepository.findDeletedBefore(cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<FishImage> images = fishRepository.findImagesByFishIds(ids);
+        int purged = fishRepository.purge(ids);
+        afterCommit(() -> imageDeleteExecutor.execute(() -> deleteImages(images)));
+        return purged;
     }
 
-    private void deleteImages(String fileNames) {
-        if (fileNames == null || fileNames.isEmpty()) return;
+    private int normalizePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
 
-        for (String fileName : fileNames.split("\\s*,\\s*")) {
-            Path imagePath = Paths.get(IMAGE_DIR + fileName);
+    /**
+     * Removes image files no other fish shares. Runs on {@code imageDeleteExecutor} once the purge has committed,
+     * so a failed purge never loses the files of a fish that is still there, and the purge does not wait for the
+     * disk. A file that cannot be removed now is left to {@link ImageReconciler}.
+     */
+    private void deleteImages(List<FishImage> images) {
+        for (FishImage image : images) {
+            Timer.Sample sample = fishMetrics.start();
+            boolean success = false;
             try {
-                if (Files.exists(imagePath)) {
-                    Files.delete(imagePath);
-                }
-            } catch (Exception ex) {
-                throw new ImageStorageException("Не вдалося видалити зображення " + fileName, ex);
+                imageStore.deleteIfUnreferenced(image.getFileName(), image.getThumbnailFileName(), image.getMediumFileName(),
+                        image.getOriginalFileName());
+                success = true;
+            } catch (RuntimeException ex) {
+                log.warn("Could not delete image {}, leaving it to the reconciler", image.getFileName(), ex);
+            } finally {
+                fishMetrics.imageIo(sample, "delete", success);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} once the current transaction has committed, or right away outside a transaction.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
             }
+        });
+    }
+
+    static FishImage toFishImage(StoredImage stored) {
+        FishImage fishImage = new FishImage();
+        fishImage.setFileName(stored.fileName());
+        fishImage.setContentHash(stored.contentHash());
+        fishImage.setSizeBytes(stored.sizeBytes());
+        fishImage.setOriginalFileName(stored.originalFileName());
+        readDimensions(stored.path(), fishImage);
+        if (ImageOptimizer.exifOrientation(stored.path()) >= 5) {
+            // orientations 5-8 turn the picture by 90 degrees, so the browser lays it out with the sides swapped
+            Integer width = fishImage.getWidth();
+            fishImage.setWidth(fishImage.getHeight());
+            fishImage.setHeight(width);
         }
+        fishImage.setPlaceholder(ImagePlaceholder.of(stored.path()));
+        return fishImage;
     }
 
-    private void saveImage(MultipartFile image, String fileName) {
-        Path uploadPath = Paths.get(IMAGE_DIR);
-        try {
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+    /**
+     * Reads width and height from the image header only; files ImageIO cannot decode keep null dimensions.
+     */
+    private static void readDimensions(Path imagePath, FishImage fishImage) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imagePath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return;
             }
-            try (InputStream inputStream = image.getInputStream()) {
-                Files.copy(inputStream, uploadPath.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                fishImage.setWidth(reader.getWidth(0));
+                fishImage.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
             }
-        } catch (Exception ex) {
-            throw new ImageStorageException("Помилка при збереженні зображення", ex);
+        } catch (IOException ex) {
+            // dimensions are optional metadata
         }
     }
 }
@@ -0,0 +1,128 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import technikal.task.fishmarket.exception.ImageStorageException;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.service.ImageStore.StoredImage;
+import technikal.task.fishmarket.service.MultipartReader.Part;
+
+/**
+ * Reads the create form's multipart body in one pass. Every photo is streamed straight into {@link ImageStore}
+ * while its size is counted, and its type is checked from the first bytes, so nothing is buffered in a temp
+ * file first and an oversized, surplus or non-image photo stops the upload as soon as it shows up. The photos
+ * arrive one after another in the body, so they are written one after another on the request thread.
+ */
+@Service
+public class FishUploadService {
+
+    public static final String IMAGE_FIELD = "imageFiles";
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+    private static final int MAX_PARTS = 16;
+
+    private final ImageStore imageStore;
+    private final FishMetrics fishMetrics;
+    private final long maxImageBytes;
+
+    public FishUploadService(ImageStore imageStore, FishMetrics fishMetrics,
+                             @Value("${fishmarket.upload.max-image-mb:20}") long maxImageMb) {
+        this.imageStore = imageStore;
+        this.fishMetrics = fishMetrics;
+        this.maxImageBytes = maxImageMb * 1024 * 1024;
+    }
+
+    /**
+     * The text fields of the form and the photos already stored. The photos hold pending references: pass them
+     * to {@code FishService.addFish} or {@link #discard} them.
+     */
+    public record FishUpload(Map<String, String> fields, List<FishImage> images) {
+    }
+
+    /**
+     * Parses the body and stores its photos. When anything is wrong with it, the photos stored so far are
+     * discarded before the exception is thrown.
+     */
+    public FishUpload receive(String contentType, long contentLength, InputStream body) throws IOException {
+        String boundary = MultipartReader.boundary(contentType)
+                .orElseThrow(() -> new InvalidFishDataException("Очікується форма multipart/form-data"));
+        if (contentLength > FishService.MAX_IMAGES * maxImageBytes + MAX_PARTS * MAX_FIELD_BYTES) {
+            throw new InvalidFishDataException("Запит завеликий");
+        }
+        MultipartReader reader = new MultipartReader(body, boundary);
+        Map<String, String> fields = new LinkedHashMap<>();
+        List<FishImage> images = new ArrayList<>();
+        try {
+            int parts = 0;
+            for (Part part = reader.next(); part != null; part = reader.next()) {
+                if (++parts > MAX_PARTS) {
+                    throw new InvalidFishDataException("Забагато полів у формі");
+                }
+                if (!part.isFile()) {
+                    if (part.name() != null) {
+                        fields.putIfAbsent(part.name(), readField(part));
+                    }
+                } else if (IMAGE_FIELD.equals(part.name()) && !part.fileName().isEmpty()) {
+                    if (images.size() == FishService.MAX_IMAGES) {
+                        throw new InvalidFishDataException("Кількість зображень має бути від 1 до 3");
+                    }
+                    images.add(store(part.body(), part.fileName()));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            discard(images);
+            throw ex;
+        }
+        return new FishUpload(fields, images);
+    }
+
+    /**
+     * Drops the pending references of photos that will not be saved and removes the files nothing else uses.
+     */
+    public void discard(List<FishImage> images) {
+        imageStore.discard(images.stream().map(FishImage::getFileName).toList());
+    }
+
+    /**
+     * Stores one photo under the extension of its detected type, failing as soon as it turns out to be empty,
+     * too large or not an image. {@link ChunkedUploadService} feeds its assembled chunks through here too.
+     */
+    FishImage store(InputStream body, String fileName) throws IOException {
+        Timer.Sample sample = fishMetrics.start();
+        InputStream input = new BufferedInputStream(new LimitedInputStream(body, maxImageBytes, fileName));
+        input.mark(ImageType.SIGNATURE_LENGTH);
+        byte[] head = input.readNBytes(ImageType.SIGNATURE_LENGTH);
+        input.reset();
+        if (head.length == 0) {
+            throw new InvalidFishDataException("Порожнє зображення не дозволено");
+        }
+        ImageType type = ImageType.detect(head).orElseThrow(() -> new InvalidFishDataException(
+                "Файл " + fileName + " не є зображенням JPEG, PNG, GIF або WebP"));
+        StoredImage stored;
+        try {
+            stored = imageStore.store(input, "upload." + type.getExtension());
+        } catch (ImageStorageException ex) {
+            fishMetrics.imageIo(sample, "save", false);
+            throw ex;
+        }
+        fishMetrics.imageSaved(sample, stored.sizeBytes());
+        return FishService.toFishImage(stored);
+    }
+
+    private static String readField(Part part) throws IOException {
+        byte[] value = part.body().readNBytes(MAX_FIELD_BYTES + 1);
+        if (value.length > MAX_FIELD_BYTES) {
+            throw new InvalidFishDataException("Поле " + part.name() + " задовге");
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,308 @@
+package technikal.task.fishmarket.service;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional re-encoding of uploads before {@link ImageStore} files them: the photo is decoded, turned upright by
+ * its EXIF orientation, scaled down to {@code fishmarket.images.optimize.max-dimension} on its long side and
+ * written as a progressive JPEG at {@code quality}, without any metadata (EXIF, GPS, camera details).
+ * <p>
+ * Only JPEGs and opaque PNGs are re-encoded; transparent or animated formats are kept as uploaded. So is a photo
+ * that needs no downscaling and would not come out smaller, unless it is a JPEG with EXIF, XMP or IPTC metadata.
+ * The bytes saved per image are recorded in
+ * {@link FishMetrics}.
+ */
+@Slf4j
+@Component
+public class ImageOptimizer {
+
+    public static final String EXTENSION = "jpg";
+    /**
+     * Decoded images above this many pixels are left alone; at 4 bytes a pixel that is 200 MB of heap.
+     */
+    private static final long MAX_PIXELS = 50_000_000L;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private final FishMetrics fishMetrics;
+    private final boolean enabled;
+    private final int maxDimension;
+    private final float quality;
+    @Getter
+    private final boolean keepOriginals;
+
+    public ImageOptimizer(FishMetrics fishMetrics,
+                          @Value("${fishmarket.images.optimize.enabled:false}") boolean enabled,
+                          @Value("${fishmarket.images.optimize.max-dimension:2560}") int maxDimension,
+                          @Value("${fishmarket.images.optimize.quality:0.82}") float quality,
+                          @Value("${fishmarket.images.optimize.keep-originals:false}") boolean keepOriginals) {
+        this.fishMetrics = fishMetrics;
+        this.enabled = enabled;
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+        this.keepOriginals = keepOriginals;
+    }
+
+    /**
+     * Stores every image as uploaded.
+     */
+    public static ImageOptimizer disabled() {
+        return new ImageOptimizer(null, false, 0, 0, false);
+    }
+
+    /**
+     * A re-encoded image written to the target path, with the digest and size of its bytes.
+     */
+    public record Optimized(String contentHash, long sizeBytes) {
+    }
+
+    /**
+     * Re-encodes the image at {@code source} into {@code target}. Empty when the source is better kept as it
+     * is; {@code target} is not left behind then.
+     */
+    public Optional<Optimized> optimize(Path source, Path target) throws IOException {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long sourceSize = Files.size(source);
+        BufferedImage image = decode(source);
+        if (image == null) {
+            fishMetrics.imageOptimized("skipped", sourceSize, sourceSize);
+            return Optional.empty();
+        }
+        boolean downscaled = Math.max(image.getWidth(), image.getHeight()) > maxDimension;
+        BufferedImage output = orient(downscaled ? scale(image) : toRgb(image), exifOrientation(source));
+        Optimized optimized = write(output, target);
+        // the re-encoded copy is stored even when larger if the upload carries metadata such as a GPS position
+        if (!downscaled && optimized.sizeBytes() >= sourceSize && !hasMetadata(source)) {
+            Files.deleteIfExists(target);
+            fishMetrics.imageOptimized("kept", sourceSize, sourceSize);
+            return Optional.empty();
+        }
+        fishMetrics.imageOptimized("reencoded", sourceSize, optimized.sizeBytes());
+        return Optional.of(optimized);
+    }
+
+    /**
+     * Decodes JPEGs and opaque PNGs, subsampling on read when the photo is at least twice the target size so a
+     * large upload never needs its full resolution in memory. Null for anything else, or anything unreadable.
+     */
+    private BufferedImage decode(Path source) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                if (!format.equals("jpeg") && !format.equals("png")) {
+                    return null;
+                }
+                reader.setInput(input, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longSide / (2 * maxDimension));
+                if ((long) reader.getWidth(0) * reader.getHeight(0) / ((long) subsampling * subsampling) > MAX_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return image.getColorModel().hasAlpha() ? null : image;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // CMYK JPEGs and other variants ImageIO cannot read are stored as uploaded
+            log.debug("Not re-encoding {}: {}", source.getFileName(), ex.toString());
+            return null;
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        if (image.getWidth() >= image.getHeight()) {
+            return ThumbnailService.scale(image, maxDimension);
+        }
+        int width = Math.max(1, (int) Math.round((double) image.getWidth() * maxDimension / image.getHeight()));
+        return ThumbnailService.scale(image, width);
+    }
+
+    private Optimized write(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        MessageDigest digest = sha256();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest);
+             ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            // no metadata: the file gets a bare JFIF header
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(target);
+            throw ex;
+        } finally {
+            writer.dispose();
+        }
+        return new Optimized(HexFormat.of().formatHex(digest.digest()), Files.size(target));
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                || image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        return transform(image, new AffineTransform(), image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Applies EXIF orientation 2-8, which is lost with the metadata and which ImageIO ignores when decoding.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        return switch (orientation) {
+            case 2 -> transform(image, new AffineTransform(-1, 0, 0, 1, w, 0), w, h);
+            case 3 -> transform(image, new AffineTransform(-1, 0, 0, -1, w, h), w, h);
+            case 4 -> transform(image, new AffineTransform(1, 0, 0, -1, 0, h), w, h);
+            case 5 -> transform(image, new AffineTransform(0, 1, 1, 0, 0, 0), h, w);
+            case 6 -> transform(image, new AffineTransform(0, 1, -1, 0, h, 0), h, w);
+            case 7 -> transform(image, new AffineTransform(0, -1, -1, 0, h, w), h, w);
+            case 8 -> transform(image, new AffineTransform(0, -1, 1, 0, 0, w), h, w);
+            default -> image;
+        };
+    }
+
+    private static BufferedImage transform(BufferedImage image, AffineTransform transform, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * The orientation tag of a JPEG's EXIF block, read from the markers before the image data; 1 (upright) when
+     * there is none.
+     */
+    static int exifOrientation(Path jpeg) {
+        try (InputStream in = Files.newInputStream(jpeg)) {
+            if (in.read() != 0xFF || in.read() != 0xD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = nextMarker(in);
+                if (marker < 0 || marker == 0xDA || marker == 0xD9) {
+                    return 1;
+                }
+                int length = (in.read() << 8) | in.read();
+                if (length < 2) {
+                    return 1;
+                }
+                byte[] segment = in.readNBytes(length - 2);
+                if (marker == 0xE1 && segment.length > 14 && new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                    return orientation(ByteBuffer.wrap(segment, 6, segment.length - 6).slice());
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            return 1;
+        }
+    }
+
+    /**
+     * Whether a JPEG has an APP1 (EXIF, XMP) or APP13 (IPTC) segment, any of which can hold where the photo was
+     * taken.
+     */
+    private static boolean hasMetadata(Path jpeg) {
+        try (InputStream in = Files.newInputStream(jpeg)) {
+            if (in.read() != 0xFF || in.read() != 0xD8) {
+                return false;
+            }
+            while (true) {
+                int marker = nextMarker(in);
+                if (marker < 0 || marker == 0xDA || marker == 0xD9) {
+                    return false;
+                }
+                if (marker == 0xE1 || marker == 0xED) {
+                    return true;
+                }
+                int length = (in.read() << 8) | in.read();
+                if (length < 2) {
+                    return false;
+                }
+                in.skipNBytes(length - 2);
+            }
+        } catch (IOException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static int nextMarker(InputStream in) throws IOException {
+        int b = in.read();
+        while (b == 0xFF) {
+            b = in.read();
+            if (b != 0xFF) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks the orientation up in IFD0 of the TIFF structure inside the EXIF block.
+     */
+    private static int orientation(ByteBuffer tiff) {
+        tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == EXIF_ORIENTATION_TAG) {
+                int value = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
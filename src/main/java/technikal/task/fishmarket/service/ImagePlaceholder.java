@@ -0,0 +1,111 @@
+package technikal.task.fishmarket.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Inline previews the catalog shows while the real image loads: the image reduced to {@value #SIZE} px on its
+ * long side and written as a PNG data URI of a few hundred bytes. Stretched to the size of the image by the
+ * browser, it shows as a blurred version of the photo.
+ */
+final class ImagePlaceholder {
+
+    static final int SIZE = 8;
+    /**
+     * Length of the {@code fish_image.placeholder} column.
+     */
+    static final int MAX_LENGTH = 512;
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+
+    private ImagePlaceholder() {
+    }
+
+    /**
+     * Null when ImageIO cannot decode the file; a placeholder is optional metadata.
+     */
+    static String of(Path imagePath) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imagePath.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage image;
+            try {
+                reader.setInput(input, true, true);
+                // a few source pixels per placeholder pixel are enough to average over
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (SIZE * 8));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            // browsers show a JPEG turned by its EXIF orientation, so the placeholder has to match
+            image = ImageOptimizer.orient(image, ImageOptimizer.exifOrientation(imagePath));
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            if (!ImageIO.write(shrink(image), "png", png)) {
+                return null;
+            }
+            String dataUri = DATA_URI_PREFIX + Base64.getEncoder().encodeToString(png.toByteArray());
+            return dataUri.length() <= MAX_LENGTH ? dataUri : null;
+        } catch (IOException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Area-averages the image down to {@link #SIZE} px on its long side.
+     */
+    static BufferedImage shrink(BufferedImage image) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int longSide = Math.max(sourceWidth, sourceHeight);
+        int width = Math.max(1, Math.round((float) sourceWidth * SIZE / longSide));
+        int height = Math.max(1, Math.round((float) sourceHeight * SIZE / longSide));
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            int top = y * sourceHeight / height;
+            int bottom = Math.max(top + 1, (y + 1) * sourceHeight / height);
+            for (int x = 0; x < width; x++) {
+                int left = x * sourceWidth / width;
+                int right = Math.max(left + 1, (x + 1) * sourceWidth / width);
+                result.setRGB(x, y, average(image, left, top, right, bottom));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mean colour of a block, with transparent pixels blended onto the white page behind the image.
+     */
+    private static int average(BufferedImage image, int left, int top, int right, int bottom) {
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        int count = 0;
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                int argb = image.getRGB(x, y);
+                int alpha = argb >>> 24;
+                red += onWhite((argb >> 16) & 0xFF, alpha);
+                green += onWhite((argb >> 8) & 0xFF, alpha);
+                blue += onWhite(argb & 0xFF, alpha);
+                count++;
+            }
+        }
+        return (int) (red / count) << 16 | (int) (green / count) << 8 | (int) (blue / count);
+    }
+
+    private static int onWhite(int channel, int alpha) {
+        return (channel * alpha + 255 * (255 - alpha)) / 255;
+    }
+}
@@ -0,0 +1,255 @@
+package technikal.task.fishmarket.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.storage.ImageStorage;
+
+/**
+ * Removes image files nothing references any more: files of a delete whose cleanup was dropped or failed,
+ * uploads whose request died before it could discard them, and temp files of interrupted writes.
+ * <p>
+ * The top-level directories of the image root are walked in parallel. Files younger than
+ * {@code fishmarket.images.reconcile.min-age-minutes} are skipped, as their rows may not be committed yet.
+ * The rest are checked against {@code fish_image} in batches of {@code batch-size} names, and each batch is
+ * followed by a {@code batch-pause-ms} pause so a large sweep does not compete with requests for the disk and
+ * the pool. Every orphan is checked once more under the store's lock before it goes.
+ */
+@Slf4j
+@Service
+public class ImageReconciler {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ImageStorage imageStorage;
+    private final ImageStore imageStore;
+    private final FishImageRepository fishImageRepository;
+    private final int threads;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration minAge;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ImageReconciler(ImageStorage imageStorage, ImageStore imageStore, FishImageRepository fishImageRepository,
+                           @Value("${fishmarket.images.reconcile.threads:4}") int threads,
+                           @Value("${fishmarket.images.reconcile.batch-size:500}") int batchSize,
+                           @Value("${fishmarket.images.reconcile.batch-pause-ms:200}") long batchPauseMs,
+                           @Value("${fishmarket.images.reconcile.min-age-minutes:60}") long minAgeMinutes) {
+        this.imageStorage = imageStorage;
+        this.imageStore = imageStore;
+        this.fishImageRepository = fishImageRepository;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.batchPause = Duration.ofMillis(batchPauseMs);
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+    }
+
+    @Scheduled(cron = "${fishmarket.images.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Image reconciliation failed", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One sweep over the image root; returns immediately with an empty result if a sweep is already running.
+     */
+    public Result reconcile() throws IOException, InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return new Result(0, 0, 0);
+        }
+        try {
+            Path root = imageStorage.getRoot();
+            if (!Files.isDirectory(root)) {
+                return new Result(0, 0, 0);
+            }
+            Instant cutoff = Instant.now().minus(minAge);
+            Sweep sweep = new Sweep(cutoff);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> walks = new ArrayList<>();
+                List<Path> flatFiles = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry)) {
+                            walks.add(executor.submit(() -> sweep.walk(entry)));
+                        } else {
+                            flatFiles.add(entry);
+                        }
+                    }
+                }
+                walks.add(executor.submit(() -> sweep.checkAll(flatFiles)));
+                for (Future<?> walk : walks) {
+                    try {
+                        walk.get();
+                    } catch (ExecutionException ex) {
+                        log.warn("Could not reconcile part of {}", root, ex.getCause());
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            Result result = sweep.result();
+            log.info("Image reconciliation: {} files checked, {} orphans found, {} deleted",
+                    result.scanned(), result.orphans(), result.deleted());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Counters and per-file logic of one run, shared by its walker threads.
+     */
+    private final class Sweep {
+
+        private final Instant cutoff;
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final AtomicInteger orphans = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+
+        Sweep(Instant cutoff) {
+            this.cutoff = cutoff;
+        }
+
+        void walk(Path dir) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                checkAll(files.filter(Files::isRegularFile)::iterator);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void checkAll(Iterable<Path> files) {
+            List<Path> batch = new ArrayList<>(batchSize);
+            for (Path file : files) {
+                batch.add(file);
+                if (batch.size() == batchSize) {
+                    check(batch);
+                    batch.clear();
+                }
+            }
+            check(batch);
+        }
+
+        /**
+         * Deletes the unreferenced files among {@code files} that are older than the cutoff, then pauses.
+         */
+        private void check(List<Path> files) {
+            Map<String, Path> candidates = new LinkedHashMap<>();
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!isOldEnough(file)) {
+                    continue;
+                }
+                scanned.incrementAndGet();
+                if (name.startsWith(".")) {
+                    deleteStaleTemp(file, name);
+                } else {
+                    candidates.put(name, file);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            Set<String> referenced = new HashSet<>();
+            for (FishImage image : fishImageRepository.findReferencing(candidates.keySet())) {
+                referenced.add(image.getFileName());
+                referenced.add(image.getThumbnailFileName());
+                referenced.add(image.getMediumFileName());
+                referenced.add(image.getOriginalFileName());
+            }
+            for (Map.Entry<String, Path> candidate : candidates.entrySet()) {
+                String name = candidate.getKey();
+                if (referenced.contains(name)) {
+                    continue;
+                }
+                orphans.incrementAndGet();
+                try {
+                    if (imageStore.deleteOrphan(candidate.getValue())) {
+                        deleted.incrementAndGet();
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("Could not delete orphaned image {}", name, ex);
+                }
+            }
+            pause();
+        }
+
+        private boolean isOldEnough(Path file) {
+            try {
+                return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+            } catch (IOException ex) {
+                // gone since it was listed
+                return false;
+            }
+        }
+
+        /**
+         * Temp files have unique names and are renamed away when their write finishes, so an old one is debris.
+         */
+        private void deleteStaleTemp(Path file, String name) {
+            if (!name.endsWith(TEMP_SUFFIX)) {
+                return;
+            }
+            orphans.incrementAndGet();
+            try {
+                if (Files.deleteIfExists(file)) {
+                    deleted.incrementAndGet();
+                }
+            } catch (IOException ex) {
+                log.warn("Could not delete stale temp file {}", file, ex);
+            }
+        }
+
+        private void pause() {
+            if (batchPause.isZero()) {
+                return;
+            }
+            try {
+                Thread.sleep(batchPause);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Image reconciliation interrupted", ex);
+            }
+        }
+
+        Result result() {
+            return new Result(scanned.get(), orphans.get(), deleted.get());
+        }
+    }
+
+    /**
+     * {@code scanned} counts files old enough to be checked; {@code deleted} may be lower than {@code orphans}
+     * when an upload started using a file in the meantime.
+     */
+    public record Result(int scanned, int orphans, int deleted) {
+    }
+}
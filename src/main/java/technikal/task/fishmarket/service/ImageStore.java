@@ -0,0 +1,292 @@
+package technikal.task.fishmarket.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.ThrowingConsumer;
+import technikal.task.fishmarket.exception.ImageStorageException;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.profiling.ImageIoEvent;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.storage.ImageStorage;
+
+/**
+ * Content-addressed image files: every upload is stored as {@code <sha256>.<ext>}, so identical photos share one file.
+ * Files are written to a temp file and atomically renamed into place. A file is only removed when no
+ * {@code fish_image} row and no in-flight upload still references it.
+ */
+@Component
+public class ImageStore {
+
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+    private static final int LOCK_STRIPES = 64;
+    private static final String ORIGINAL_SUFFIX = "_original";
+
+    private final ImageStorage imageStorage;
+    private final FishImageRepository fishImageRepository;
+    private final ImageOptimizer imageOptimizer;
+    private final Map<String, Integer> pendingReferences = new ConcurrentHashMap<>();
+    /**
+     * Locks rather than monitors: the critical sections do file I/O, and a virtual thread blocking inside
+     * {@code synchronized} would pin its carrier thread.
+     */
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public ImageStore(ImageStorage imageStorage, FishImageRepository fishImageRepository,
+                      ImageOptimizer imageOptimizer) {
+        this.imageStorage = imageStorage;
+        this.fishImageRepository = fishImageRepository;
+        this.imageOptimizer = imageOptimizer;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Where the file currently is, or where it would be written if it does not exist yet.
+     */
+    public Path path(String fileName) {
+        return imageStorage.find(fileName).orElseGet(() -> imageStorage.pathFor(fileName));
+    }
+
+    /**
+     * Streams the upload into a temp file while hashing it, then moves it into place under its digest.
+     * When {@link ImageOptimizer} re-encodes it, the re-encoded JPEG is what gets stored and addressed, and the
+     * upload itself is kept beside it as {@code <digest>_original.<ext>} only if originals are configured to stay.
+     * The returned name holds a pending reference until {@link #release} is called. A stream that rejects its
+     * content with {@link InvalidFishDataException} (too large, not an image) fails the call with that exception.
+     */
+    public StoredImage store(InputStream input, String originalFilename) {
+        ImageIoEvent event = new ImageIoEvent("write");
+        event.begin();
+        Path temp = null;
+        Path optimizedTemp = null;
+        try {
+            Files.createDirectories(imageStorage.getRoot());
+            temp = tempFile(".upload-");
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(input, digest)) {
+                size = Files.copy(in, temp);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            String fileName = contentHash + extension(originalFilename);
+            String originalFileName = null;
+            optimizedTemp = tempFile(".optimized-");
+            Optional<ImageOptimizer.Optimized> optimized = imageOptimizer.optimize(temp, optimizedTemp);
+            if (optimized.isPresent()) {
+                contentHash = optimized.get().contentHash();
+                size = optimized.get().sizeBytes();
+                fileName = contentHash + "." + ImageOptimizer.EXTENSION;
+                if (imageOptimizer.isKeepOriginals()) {
+                    originalFileName = ThumbnailService.renditionName(fileName, ORIGINAL_SUFFIX + extension(originalFilename));
+                }
+            }
+            Path target;
+            ReentrantLock lock = lockFor(fileName);
+            lock.lock();
+            try {
+                pendingReferences.merge(fileName, 1, Integer::sum);
+                target = moveIntoPlace(optimized.isPresent() ? optimizedTemp : temp, fileName);
+                if (originalFileName != null) {
+                    moveIntoPlace(temp, originalFileName);
+                }
+            } finally {
+                lock.unlock();
+            }
+            event.setFileName(fileName);
+            event.setSizeBytes(size);
+            return new StoredImage(fileName, contentHash, size, target, originalFileName);
+        } catch (InvalidFishDataException ex) {
+            throw ex;
+        } catch (IOException | RuntimeException ex) {
+            throw new ImageStorageException("Помилка при збереженні зображення", ex);
+        } finally {
+            deleteTemp(temp);
+            deleteTemp(optimizedTemp);
+            event.finish();
+        }
+    }
+
+    /**
+     * Writes a derived file (e.g. a rendition) atomically unless it already exists.
+     */
+    public void storeDerived(String fileName, ThrowingConsumer<OutputStream> writer) throws IOException {
+        if (imageStorage.find(fileName).isPresent()) {
+            return;
+        }
+        Path temp = tempFile(".derived-");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.accept(out);
+            }
+            moveIntoPlace(temp, fileName);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    public void release(Collection<String> fileNames) {
+        for (String fileName : fileNames) {
+            pendingReferences.computeIfPresent(fileName, (name, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Gives up freshly stored files that will not be saved: drops their pending references and deletes the ones
+     * no fish uses.
+     */
+    public void discard(Collection<String> fileNames) {
+        release(fileNames);
+        fileNames.forEach(this::deleteIfUnreferenced);
+    }
+
+    /**
+     * Deletes {@code fileName} and the files derived from it when nothing references it any more.
+     * Must run after the referencing rows have been deleted (or flushed) in the current transaction.
+     * Derived files are checked on their own: renditions are named without the extension, so
+     * {@code <hash>.jpg} and {@code <hash>.jpeg} share them.
+     */
+    public boolean deleteIfUnreferenced(String fileName, String... derivedFileNames) {
+        ReentrantLock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            if (pendingReferences.containsKey(fileName) || fishImageRepository.existsByFileName(fileName)) {
+                return false;
+            }
+            deleteFile(fileName);
+        } finally {
+            lock.unlock();
+        }
+        // one lock at a time, so two deletes never wait on each other's stripes
+        for (String derived : derivedFileNames) {
+            if (derived != null) {
+                deleteDerivedIfUnreferenced(derived);
+            }
+        }
+        return true;
+    }
+
+    private void deleteDerivedIfUnreferenced(String fileName) {
+        ReentrantLock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            if (!pendingReferences.containsKey(fileName) && !fishImageRepository.isReferenced(fileName)) {
+                deleteFile(fileName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a file the reconciler found unreferenced at {@code path}, unless an upload or any {@code fish_image}
+     * row (as original or rendition) started using it since. Checked under the same lock {@link #store} takes, so
+     * a file cannot be removed between an upload finding it in place and recording its reference.
+     */
+    public boolean deleteOrphan(Path path) {
+        String fileName = path.getFileName().toString();
+        ReentrantLock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            if (pendingReferences.containsKey(fileName) || fishImageRepository.isReferenced(fileName)) {
+                return false;
+            }
+            deleteFile(fileName, path);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path moveIntoPlace(Path temp, String fileName) throws IOException {
+        Optional<Path> existing = imageStorage.find(fileName);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        Path target = imageStorage.pathFor(fileName);
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    private void deleteFile(String fileName) {
+        imageStorage.find(fileName).ifPresent(path -> deleteFile(fileName, path));
+    }
+
+    private void deleteFile(String fileName, Path path) {
+        ImageIoEvent event = new ImageIoEvent("delete");
+        event.setFileName(fileName);
+        event.begin();
+        try {
+            Files.delete(path);
+        } catch (Exception ex) {
+            throw new ImageStorageException("Не вдалося видалити зображення " + fileName, ex);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Temp files live in the storage root so the final rename stays on one filesystem and is atomic.
+     * They are not created via {@code Files.createTempFile}, which would leave them owner-readable only.
+     */
+    private Path tempFile(String prefix) {
+        return imageStorage.getRoot().resolve(prefix + UUID.randomUUID() + ".tmp");
+    }
+
+    private ReentrantLock lockFor(String fileName) {
+        return locks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    static String extension(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        String extension = dot < 0 ? "" : originalFilename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void deleteTemp(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // a leftover dot-file is harmless: it is never referenced by a fish_image row
+        }
+    }
+
+    /**
+     * {@code originalFileName} is set when the upload was re-encoded and its original kept; it is deleted with
+     * {@code fileName}.
+     */
+    public record StoredImage(String fileName, String contentHash, long sizeBytes, Path path, String originalFileName) {
+    }
+}
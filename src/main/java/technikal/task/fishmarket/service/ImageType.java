@@ -0,0 +1,48 @@
+package technikal.task.fishmarket.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Image formats accepted for upload, recognised by their leading magic bytes rather than by the file name or
+ * the content type the browser claims. The stored file gets the extension of the detected format.
+ */
+@RequiredArgsConstructor
+public enum ImageType {
+
+    JPEG("jpg", "image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    PNG("png", "image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+    GIF("gif", "image/gif", new byte[]{'G', 'I', 'F', '8'}),
+    WEBP("webp", "image/webp", new byte[]{'R', 'I', 'F', 'F'});
+
+    /**
+     * Bytes needed to tell the formats apart: WebP has {@code WEBP} at offset 8, after the RIFF chunk size.
+     */
+    public static final int SIGNATURE_LENGTH = 12;
+    private static final byte[] WEBP_FOURCC = {'W', 'E', 'B', 'P'};
+
+    @Getter
+    private final String extension;
+    @Getter
+    private final String contentType;
+    private final byte[] magic;
+
+    public static Optional<ImageType> detect(byte[] head) {
+        for (ImageType type : values()) {
+            if (type.matches(head)) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(byte[] head) {
+        if (head.length < magic.length || !Arrays.equals(head, 0, magic.length, magic, 0, magic.length)) {
+            return false;
+        }
+        return this != WEBP
+                || head.length >= SIGNATURE_LENGTH && Arrays.equals(head, 8, SIGNATURE_LENGTH, WEBP_FOURCC, 0, 4);
+    }
+}
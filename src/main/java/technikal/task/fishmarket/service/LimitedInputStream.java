@@ -0,0 +1,49 @@
+package technikal.task.fishmarket.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+
+/**
+ * Fails the read that goes past {@code maxBytes}, so an oversized image is rejected before the rest of it is read
+ * from the network or inflated from an archive.
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+    private final String fileName;
+    private final long maxBytes;
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long maxBytes, String fileName) {
+        super(in);
+        this.fileName = fileName;
+        this.maxBytes = maxBytes;
+        this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            consume(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            consume(n);
+        }
+        return n;
+    }
+
+    private void consume(int n) {
+        remaining -= n;
+        if (remaining < 0) {
+            throw new InvalidFishDataException("Фото " + fileName + " більше за " + maxBytes / (1024 * 1024) + " МБ");
+        }
+    }
+}
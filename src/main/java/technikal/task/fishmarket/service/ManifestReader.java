@@ -0,0 +1,169 @@
+package technikal.task.fishmarket.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+
+/**
+ * Reads the CSV manifest of a bulk import: a header with {@code name}, {@code price} and {@code images}
+ * columns (any order, other columns ignored), then one fish per record. Fields may be quoted with {@code "};
+ * the delimiter is {@code ,} or, as Excel writes it in Ukrainian locales, {@code ;}. Image names are separated by {@code |}.
+ */
+final class ManifestReader {
+
+    static final String IMAGE_SEPARATOR = "|";
+
+    private static final int HEADER_LOOKAHEAD = 8192;
+
+    private final BufferedReader reader;
+    private int line = 1;
+    private int peeked = -2;
+
+    private ManifestReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    record ManifestRow(int line, String name, String price, List<String> images) {
+    }
+
+    static List<ManifestRow> read(Reader input) throws IOException {
+        ManifestReader manifest = new ManifestReader(input);
+        manifest.skipBom();
+        String headerLine = manifest.peekHeaderLine();
+        char delimiter = headerLine.indexOf(';') >= 0 && headerLine.indexOf(',') < 0 ? ';' : ',';
+        List<String> header = manifest.readRecord(delimiter);
+        if (header == null) {
+            throw new InvalidFishDataException("Маніфест порожній");
+        }
+        int nameColumn = column(header, "name");
+        int priceColumn = column(header, "price");
+        int imagesColumn = column(header, "images");
+
+        List<ManifestRow> rows = new ArrayList<>();
+        while (true) {
+            int recordLine = manifest.line;
+            List<String> record = manifest.readRecord(delimiter);
+            if (record == null) {
+                return rows;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            rows.add(new ManifestRow(recordLine, field(record, nameColumn), field(record, priceColumn),
+                    splitImages(field(record, imagesColumn))));
+        }
+    }
+
+    private static int column(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        throw new InvalidFishDataException("У маніфесті немає колонки " + name);
+    }
+
+    private static String field(List<String> record, int column) {
+        return column < record.size() ? record.get(column).trim() : "";
+    }
+
+    private static List<String> splitImages(String images) {
+        if (images.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(images.split("\\" + IMAGE_SEPARATOR))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Returns the next record, or null at the end of input. Quoted fields may contain delimiters,
+     * line breaks and doubled quotes.
+     */
+    private List<String> readRecord(char delimiter) throws IOException {
+        int c = next();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new InvalidFishDataException("Незакриті лапки у маніфесті, рядок " + line);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append('"');
+                        next();
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    next();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = next();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * The delimiter is chosen from the header line, which is looked at without consuming it.
+     */
+    private String peekHeaderLine() throws IOException {
+        StringBuilder header = new StringBuilder();
+        reader.mark(HEADER_LOOKAHEAD);
+        int c;
+        while (header.length() < HEADER_LOOKAHEAD - 1 && (c = reader.read()) != -1 && c != '\n') {
+            header.append((char) c);
+        }
+        reader.reset();
+        return header.toString();
+    }
+
+    private void skipBom() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private int next() throws IOException {
+        int c = peeked != -2 ? peeked : reader.read();
+        peeked = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,240 @@
+package technikal.task.fishmarket.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+
+/**
+ * Reads a {@code multipart/form-data} body part by part straight from the request stream, so a part can be
+ * copied to its destination while it arrives instead of being buffered in a temp file first. Only one part is
+ * open at a time; {@link #next()} skips whatever of the previous part was not read.
+ */
+public final class MultipartReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    private final InputStream input;
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int head;
+    private int tail;
+    private PartInputStream current;
+    private boolean finished;
+
+    public MultipartReader(InputStream input, String boundary) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // the first boundary has no CRLF in front of it; pretend it does so every boundary looks the same
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        tail = 2;
+    }
+
+    public record Part(String name, String fileName, String contentType, InputStream body) {
+
+        public boolean isFile() {
+            return fileName != null;
+        }
+    }
+
+    /**
+     * The {@code boundary} parameter of a {@code multipart/form-data} content type.
+     */
+    public static Optional<String> boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(parameter(contentType, "boundary")).filter(boundary -> !boundary.isEmpty());
+    }
+
+    /**
+     * The next part, or {@code null} after the closing boundary.
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        // the rest of the previous part, or the preamble before the first boundary
+        (current == null ? new PartInputStream() : current).transferTo(OutputStream.nullOutputStream());
+        require(2);
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            current = null;
+            return null;
+        }
+        if (buffer[head] != '\r' || buffer[head + 1] != '\n') {
+            throw malformed();
+        }
+        head += 2;
+        String headers = readHeaders();
+        String disposition = null;
+        String contentType = null;
+        for (String line : headers.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (name.equals("content-disposition")) {
+                disposition = value;
+            } else if (name.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        if (disposition == null) {
+            throw malformed();
+        }
+        current = new PartInputStream();
+        return new Part(parameter(disposition, "name"), parameter(disposition, "filename"), contentType, current);
+    }
+
+    private String readHeaders() throws IOException {
+        int scanned = 0;
+        while (true) {
+            int end = indexOf(HEADER_END, head + scanned);
+            if (end >= 0) {
+                String headers = new String(buffer, head, end - head, StandardCharsets.UTF_8);
+                head = end + HEADER_END.length;
+                return headers;
+            }
+            if (tail - head >= MAX_HEADER_BYTES) {
+                throw malformed();
+            }
+            scanned = Math.max(0, tail - head - HEADER_END.length + 1);
+            if (!fill()) {
+                throw malformed();
+            }
+        }
+    }
+
+    private void require(int bytes) throws IOException {
+        while (tail - head < bytes) {
+            if (!fill()) {
+                throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front and reads more after them; false at the end of the input.
+     */
+    private boolean fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = input.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOf(byte[] pattern, int from) {
+        int last = tail - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Value of {@code name=value} or {@code name="value"} in a header such as {@code Content-Disposition}.
+     */
+    static String parameter(String header, String name) {
+        for (String parameter : header.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase(name)) {
+                continue;
+            }
+            String value = parameter.substring(equals + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+            }
+            return value;
+        }
+        return null;
+    }
+
+    private static InvalidFishDataException malformed() {
+        return new InvalidFishDataException("Пошкоджений запит multipart/form-data");
+    }
+
+    /**
+     * The body of one part: everything up to the next delimiter. Bytes that could be the start of the
+     * delimiter stay in the buffer until enough input has arrived to tell.
+     */
+    private final class PartInputStream extends InputStream {
+
+        /**
+         * Bytes before this buffer position are part data; at it the delimiter starts if {@code atDelimiter}.
+         */
+        private int dataEnd;
+        private boolean atDelimiter;
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (head >= dataEnd) {
+                if (atDelimiter) {
+                    head = dataEnd + delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                scan();
+            }
+            int count = Math.min(length, dataEnd - head);
+            System.arraycopy(buffer, head, target, offset, count);
+            head += count;
+            return count;
+        }
+
+        private void scan() throws IOException {
+            int delimiterAt = indexOf(delimiter, head);
+            if (delimiterAt >= 0) {
+                dataEnd = delimiterAt;
+                atDelimiter = true;
+                return;
+            }
+            dataEnd = tail - delimiter.length + 1;
+            if (dataEnd <= head) {
+                if (!fill()) {
+                    throw malformed();
+                }
+                dataEnd = head;
+            }
+        }
+
+        @Override
+        public void close() {
+            // the request stream stays open for the following parts
+        }
+    }
+}
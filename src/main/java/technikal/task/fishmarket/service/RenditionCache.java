@@ -0,0 +1,347 @@
+package technikal.task.fishmarket.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+/**
+ * Narrower JPEG copies of stored images, rendered on first request ({@code /images/<name>?w=<px>}).
+ * <p>
+ * Requested widths are rounded up to one of {@link #WIDTHS}, so one image has at most that many renditions.
+ * They are kept in their own sharded directory ({@code fishmarket.images.renditions.dir}, outside the image root
+ * the reconciler sweeps), which is trimmed least recently used first to {@code disk-mb}; the most used ones are
+ * also held in memory up to {@code memory-mb}. Concurrent requests for the same rendition share one render, and
+ * at most {@code resize-threads} renders run at a time. Renditions of a deleted image are not served (the
+ * original is looked up first) and age out of the directory.
+ */
+@Slf4j
+@Component
+public class RenditionCache {
+
+    public static final int[] WIDTHS = {160, 320, 480, 640, 960, 1280, 1920};
+    private static final String RENDITION_SUFFIX = ".jpg";
+    /**
+     * Decoded images above this many pixels are served as they are; at 4 bytes a pixel that is 200 MB of heap.
+     */
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private final FishMetrics fishMetrics;
+    private final ShardedImageStorage storage;
+    private final long maxDiskBytes;
+    private final long maxMemoryBytes;
+    private final Semaphore resizes;
+    private final Cache<String, Rendition> memory;
+    /**
+     * Images that are no wider than the requested width, or that cannot be rendered; they are served as stored.
+     */
+    private final Cache<String, Boolean> servedAsStored = Caffeine.newBuilder().maximumSize(10_000).build();
+    private final Map<String, CompletableFuture<Optional<Rendition>>> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Rendition files on disk and their sizes, in access order. Guarded by {@link #diskLock}.
+     */
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock diskLock = new ReentrantLock();
+    private long diskBytes;
+
+    public RenditionCache(FishMetrics fishMetrics,
+                          @Value("${fishmarket.images.renditions.dir:public/image-renditions}") String dir,
+                          @Value("${fishmarket.images.renditions.disk-mb:1024}") long diskMb,
+                          @Value("${fishmarket.images.renditions.memory-mb:32}") long memoryMb,
+                          @Value("${fishmarket.images.renditions.resize-threads:4}") int resizeThreads) {
+        this.fishMetrics = fishMetrics;
+        this.storage = new ShardedImageStorage(Paths.get(dir));
+        this.maxDiskBytes = diskMb * 1024 * 1024;
+        this.maxMemoryBytes = memoryMb * 1024 * 1024;
+        this.resizes = new Semaphore(Math.max(1, resizeThreads));
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String name, Rendition rendition) -> rendition.bytes().length)
+                .build();
+    }
+
+    /**
+     * A rendered copy of an image.
+     */
+    public record Rendition(String name, byte[] bytes) {
+    }
+
+    /**
+     * Picks up renditions left by an earlier run, oldest first, so they are evicted before new ones.
+     */
+    @PostConstruct
+    void loadIndex() throws IOException {
+        Path root = storage.getRoot();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 3)) {
+            files = walk.filter(path -> !path.getFileName().toString().startsWith("."))
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(RenditionCache::lastModified))
+                    .toList();
+        }
+        for (Path file : files) {
+            record(file.getFileName().toString(), sizeOf(file));
+        }
+        trim();
+    }
+
+    /**
+     * The rendition of the image stored at {@code original} for {@code requestedWidth}, or empty when the image
+     * should be served as stored: it is not wider than that, or it is not an opaque image ImageIO can read.
+     */
+    public Optional<Rendition> get(String fileName, Path original, int requestedWidth) {
+        int width = snap(requestedWidth);
+        String name = renditionName(fileName, width);
+        Rendition cached = memory.getIfPresent(name);
+        if (cached != null) {
+            fishMetrics.renditionServed("memory");
+            return Optional.of(cached);
+        }
+        if (servedAsStored.getIfPresent(name) != null) {
+            fishMetrics.renditionServed("original");
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<Rendition>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<Rendition>> running = inFlight.putIfAbsent(name, created);
+        if (running != null) {
+            fishMetrics.renditionServed("coalesced");
+            return running.join();
+        }
+        Optional<Rendition> rendition = Optional.empty();
+        try {
+            rendition = load(name, original, width);
+            rendition.ifPresentOrElse(this::keepInMemory, () -> servedAsStored.put(name, Boolean.TRUE));
+        } catch (IOException | RuntimeException ex) {
+            // the original is served instead; a later request tries again
+            log.warn("Failed to render {} at {}px", fileName, width, ex);
+        } finally {
+            created.complete(rendition);
+            inFlight.remove(name, created);
+        }
+        return rendition;
+    }
+
+    /**
+     * A rendition larger than the whole memory tier would only push everything else out, so it stays on disk.
+     */
+    private void keepInMemory(Rendition rendition) {
+        if (rendition.bytes().length <= maxMemoryBytes) {
+            memory.put(rendition.name(), rendition);
+        }
+    }
+
+    private Optional<Rendition> load(String name, Path original, int width) throws IOException {
+        Path path = storage.pathFor(name);
+        if (touch(name)) {
+            try {
+                byte[] bytes = Files.readAllBytes(path);
+                fishMetrics.renditionServed("disk");
+                return Optional.of(new Rendition(name, bytes));
+            } catch (NoSuchFileException ex) {
+                forget(name);
+            }
+        }
+        byte[] bytes = render(original, width);
+        if (bytes == null) {
+            fishMetrics.renditionServed("original");
+            return Optional.empty();
+        }
+        write(path, bytes);
+        record(name, bytes.length);
+        trim();
+        fishMetrics.renditionServed("rendered");
+        return Optional.of(new Rendition(name, bytes));
+    }
+
+    /**
+     * Null when the image is not wider than {@code width} or cannot be rendered.
+     */
+    private byte[] render(Path original, int width) throws IOException {
+        try {
+            resizes.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            int orientation = ImageOptimizer.exifOrientation(original);
+            BufferedImage image = decode(original, width, orientation >= 5);
+            if (image == null) {
+                return null;
+            }
+            image = ImageOptimizer.orient(image, orientation);
+            if (image.getWidth() <= width) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(ThumbnailService.scale(image, width), "jpg", out)) {
+                throw new IOException("No JPEG writer available");
+            }
+            return out.toByteArray();
+        } finally {
+            resizes.release();
+        }
+    }
+
+    /**
+     * Decodes with subsampling when the image is at least twice the target width, so a large photo never needs
+     * its full resolution in memory. Null for images with transparency, which a JPEG cannot keep.
+     */
+    private static BufferedImage decode(Path original, int width, boolean rotated) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = rotated ? reader.getHeight(0) : reader.getWidth(0);
+                int subsampling = Math.max(1, sourceWidth / (2 * width));
+                if ((long) reader.getWidth(0) * reader.getHeight(0) / ((long) subsampling * subsampling) > MAX_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return image.getColorModel().hasAlpha() ? null : image;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Written to a temp file beside the target and renamed, so a concurrent reader never sees half a file.
+     */
+    private static void write(Path path, byte[] bytes) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean touch(String name) {
+        diskLock.lock();
+        try {
+            return diskEntries.get(name) != null;
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private void record(String name, long size) {
+        diskLock.lock();
+        try {
+            Long previous = diskEntries.put(name, size);
+            diskBytes += size - (previous == null ? 0 : previous);
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private void forget(String name) {
+        diskLock.lock();
+        try {
+            Long size = diskEntries.remove(name);
+            diskBytes -= size == null ? 0 : size;
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    /**
+     * Drops least recently used files until the directory fits {@code disk-mb}; the newest one always stays.
+     * Files are deleted outside the lock.
+     */
+    private void trim() {
+        List<String> evicted = new ArrayList<>();
+        diskLock.lock();
+        try {
+            Iterator<Map.Entry<String, Long>> entries = diskEntries.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && diskEntries.size() > 1 && entries.hasNext()) {
+                Map.Entry<String, Long> eldest = entries.next();
+                diskBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                entries.remove();
+            }
+        } finally {
+            diskLock.unlock();
+        }
+        for (String name : evicted) {
+            try {
+                Files.deleteIfExists(storage.pathFor(name));
+            } catch (IOException ex) {
+                log.warn("Failed to evict rendition {}", name, ex);
+            }
+        }
+    }
+
+    /**
+     * The smallest of {@link #WIDTHS} that is at least {@code width}, or the largest one.
+     */
+    public static int snap(int width) {
+        for (int candidate : WIDTHS) {
+            if (candidate >= width) {
+                return candidate;
+            }
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    static String renditionName(String fileName, int width) {
+        return ThumbnailService.renditionName(fileName, "_w" + width + RENDITION_SUFFIX);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package technikal.task.fishmarket.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishImageRepository;
+
+/**
+ * Renders thumbnail and medium JPEG renditions of uploaded images on {@code thumbnailExecutor}.
+ * The catalog shows the original until the rendition is recorded in {@code fish_image}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    public static final int THUMBNAIL_WIDTH = 200;
+    public static final int MEDIUM_WIDTH = 800;
+    private static final String THUMBNAIL_SUFFIX = "_thumb.jpg";
+    private static final String MEDIUM_SUFFIX = "_medium.jpg";
+
+    private final FishImageRepository fishImageRepository;
+    private final ImageStore imageStore;
+    private final ThreadPoolTaskExecutor thumbnailExecutor;
+
+    @TransactionalEventListener
+    public void onFishCreated(FishCreatedEvent event) {
+        for (FishImage image : event.images()) {
+            thumbnailExecutor.execute(() -> generateRenditions(image.getId(), image.getFileName()));
+        }
+    }
+
+    void generateRenditions(Long imageId, String fileName) {
+        try {
+            BufferedImage original = ImageIO.read(imageStore.path(fileName).toFile());
+            if (original == null) {
+                log.warn("Skipping renditions for {}: not a readable image", fileName);
+                return;
+            }
+            String thumbnail = writeRendition(original, THUMBNAIL_WIDTH, renditionName(fileName, THUMBNAIL_SUFFIX));
+            String medium = writeRendition(original, MEDIUM_WIDTH, renditionName(fileName, MEDIUM_SUFFIX));
+            if (fishImageRepository.updateRenditions(imageId, thumbnail, medium) == 0) {
+                imageStore.deleteIfUnreferenced(fileName, thumbnail, medium);
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to generate renditions for {}", fileName, ex);
+        }
+    }
+
+    static String renditionName(String fileName, String suffix) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName) + suffix;
+    }
+
+    /**
+     * Returns the rendition file name, or null when the original is not wider than the target.
+     * Renditions are named after the content-addressed original, so a duplicate upload reuses the existing file.
+     */
+    private String writeRendition(BufferedImage original, int targetWidth, String name) throws IOException {
+        if (original.getWidth() <= targetWidth) {
+            return null;
+        }
+        imageStore.storeDerived(name, out -> {
+            if (!ImageIO.write(scale(original, targetWidth), "jpg", out)) {
+                throw new IOException("No JPEG writer available");
+            }
+        });
+        return name;
+    }
+
+    /**
+     * Halves the image until it is close to the target width before the final bilinear step,
+     * which keeps quality acceptable without the cost of area-averaging scaling.
+     */
+    static BufferedImage scale(BufferedImage original, int targetWidth) {
+        BufferedImage current = original;
+        int width = original.getWidth();
+        int height = original.getHeight();
+        do {
+            width = Math.max(width / 2, targetWidth);
+            height = Math.max(1, (int) Math.round((double) original.getHeight() * width / original.getWidth()));
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width > targetWidth);
+        return current;
+    }
+}
@@ -0,0 +1,33 @@
+package technikal.task.fishmarket.storage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * All files directly in the root directory, the layout used before sharding was introduced.
+ */
+public class FlatImageStorage implements ImageStorage {
+
+    private final Path root;
+
+    public FlatImageStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public Path pathFor(String fileName) {
+        return root.resolve(fileName);
+    }
+
+    @Override
+    public Optional<Path> find(String fileName) {
+        Path path = pathFor(fileName);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package technikal.task.fishmarket.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration of a flat {@code public/images/} directory into the sharded layout:
+ * {@code java -jar fishmarket.jar --reshard-images [--reshard-threads=8] --server.port=0}.
+ * The application exits once the migration is done.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageReshardCommand implements ApplicationRunner {
+
+    static final String OPTION = "reshard-images";
+    static final String THREADS_OPTION = "reshard-threads";
+
+    private final ImageStorage imageStorage;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        if (!(imageStorage instanceof ShardedImageStorage sharded)) {
+            log.error("--{} requires fishmarket.images.layout=sharded", OPTION);
+            System.exit(SpringApplication.exit(context, () -> 1));
+            return;
+        }
+        int threads = args.containsOption(THREADS_OPTION)
+                ? Integer.parseInt(args.getOptionValues(THREADS_OPTION).get(0))
+                : Runtime.getRuntime().availableProcessors();
+        ImageResharder.Result result = new ImageResharder(sharded).reshard(threads);
+        log.info("Re-sharded {} image files into {}, {} failed", result.moved(), sharded.getRoot(), result.failed());
+        System.exit(SpringApplication.exit(context, () -> result.failed() == 0 ? 0 : 1));
+    }
+}
@@ -0,0 +1,71 @@
+package technikal.task.fishmarket.storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves files from the flat root directory into their sharded location using a fixed number of worker threads.
+ * Safe to run while the application serves traffic and safe to re-run: {@link ShardedImageStorage#find}
+ * resolves both locations, and files already in place are skipped.
+ */
+@Slf4j
+public class ImageResharder {
+
+    private final ShardedImageStorage storage;
+
+    public ImageResharder(ShardedImageStorage storage) {
+        this.storage = storage;
+    }
+
+    public Result reshard(int parallelism) throws IOException, InterruptedException {
+        AtomicInteger moved = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        // caps the number of queued moves so a huge directory is streamed instead of buffered as tasks
+        Semaphore inFlight = new Semaphore(parallelism * 4);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storage.getRoot(),
+                path -> Files.isRegularFile(path) && !path.getFileName().toString().startsWith("."))) {
+            for (Path file : files) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        moveToShard(file);
+                        moved.incrementAndGet();
+                    } catch (IOException | RuntimeException ex) {
+                        failed.incrementAndGet();
+                        log.warn("Failed to re-shard {}", file, ex);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return new Result(moved.get(), failed.get());
+    }
+
+    private void moveToShard(Path file) throws IOException {
+        Path target = storage.pathFor(file.getFileName().toString());
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            // same name means same content for content-addressed files; the sharded copy wins
+            Files.delete(file);
+        } else {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    public record Result(int moved, int failed) {
+    }
+}
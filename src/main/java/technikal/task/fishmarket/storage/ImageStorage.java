@@ -0,0 +1,23 @@
+package technikal.task.fishmarket.storage;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * On-disk layout of stored image files. Callers only deal with bare file names;
+ * the layout decides which directory a name lives in.
+ */
+public interface ImageStorage {
+
+    Path getRoot();
+
+    /**
+     * Location a file with this name is written to.
+     */
+    Path pathFor(String fileName);
+
+    /**
+     * Current location of an existing file, including locations left over from an older layout.
+     */
+    Optional<Path> find(String fileName);
+}
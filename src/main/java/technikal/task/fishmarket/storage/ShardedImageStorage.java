@@ -0,0 +1,66 @@
+package technikal.task.fishmarket.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Two-level hash-prefix layout, {@code ab/cd/<name>}, which keeps every directory small (at most 256 entries
+ * per level plus the files of one shard). Content-addressed names are sharded by their own leading hex digits,
+ * so renditions land next to their original; any other name is sharded by the SHA-256 of the name.
+ * Files still sitting flat in the root are found too, so nothing breaks before or during re-sharding.
+ */
+public class ShardedImageStorage implements ImageStorage {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("^[0-9a-f]{64}.*");
+
+    private final Path root;
+
+    public ShardedImageStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public Path pathFor(String fileName) {
+        String prefix = shardPrefix(fileName);
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(fileName);
+    }
+
+    /**
+     * Checks the sharded location again after the flat one, so a file moved by a concurrent re-shard is not missed.
+     */
+    @Override
+    public Optional<Path> find(String fileName) {
+        Path sharded = pathFor(fileName);
+        if (Files.exists(sharded)) {
+            return Optional.of(sharded);
+        }
+        Path flat = root.resolve(fileName);
+        if (Files.exists(flat)) {
+            return Optional.of(flat);
+        }
+        return Files.exists(sharded) ? Optional.of(sharded) : Optional.empty();
+    }
+
+    static String shardPrefix(String fileName) {
+        if (CONTENT_ADDRESSED.matcher(fileName).matches()) {
+            return fileName.substring(0, 4);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fileName.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V003__create_fish_image_table.sql
+
+-- changeset artem:003
+CREATE TABLE fish_image (
+                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            fish_id BIGINT NOT NULL,
+                            sort_order INT NOT NULL,
+                            file_name VARCHAR(255) NOT NULL,
+                            size_bytes BIGINT,
+                            width INT,
+                            height INT,
+                            content_hash CHAR(64),
+                            CONSTRAINT fk_fish_image_fish FOREIGN KEY (fish_id) REFERENCES fish (id) ON DELETE CASCADE,
+                            CONSTRAINT uk_fish_image_sort_order UNIQUE (fish_id, sort_order)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE INDEX idx_fish_image_file_name ON fish_image (file_name);
+CREATE INDEX idx_fish_image_content_hash ON fish_image (content_hash);
+
+-- changeset artem:004 dbms:mysql
+-- comment: split the comma-joined fish.image_file_names into one fish_image row per file, keeping the original order
+INSERT INTO fish_image (fish_id, sort_order, file_name)
+WITH RECURSIVE image_names (fish_id, sort_order, file_name, rest) AS (
+    SELECT id,
+           0,
+           TRIM(SUBSTRING_INDEX(image_file_names, ',', 1)),
+           IF(LOCATE(',', image_file_names) > 0, SUBSTRING(image_file_names, LOCATE(',', image_file_names) + 1), NULL)
+    FROM fish
+    WHERE image_file_names IS NOT NULL AND image_file_names <> ''
+    UNION ALL
+    SELECT fish_id,
+           sort_order + 1,
+           TRIM(SUBSTRING_INDEX(rest, ',', 1)),
+           IF(LOCATE(',', rest) > 0, SUBSTRING(rest, LOCATE(',', rest) + 1), NULL)
+    FROM image_names
+    WHERE rest IS NOT NULL
+)
+SELECT fish_id, sort_order, file_name
+FROM image_names
+WHERE file_name <> '';
+
+-- changeset artem:005
+ALTER TABLE fish DROP COLUMN image_file_names;
+-- rollback ALTER TABLE fish ADD COLUMN image_file_names VARCHAR(1020) DEFAULT NULL;
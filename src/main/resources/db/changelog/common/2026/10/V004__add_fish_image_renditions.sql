@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V004__add_fish_image_renditions.sql
+
+-- changeset artem:006
+ALTER TABLE fish_image ADD COLUMN thumbnail_file_name VARCHAR(255) DEFAULT NULL;
+ALTER TABLE fish_image ADD COLUMN medium_file_name VARCHAR(255) DEFAULT NULL;
@@ -0,0 +1,15 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V005__create_id_generator_table.sql
+
+-- changeset artem:007
+-- comment: pooled id allocation for fish and fish_image, so Hibernate can batch inserts (IDENTITY cannot)
+CREATE TABLE id_generator (
+                              name VARCHAR(64) NOT NULL PRIMARY KEY,
+                              next_val BIGINT NOT NULL
+);
+
+-- The pooled optimizer hands out (next_val - 49) .. next_val for an allocation size of 50,
+-- so the first block must start right after the ids that already exist.
+INSERT INTO id_generator (name, next_val) SELECT 'fish', COALESCE(MAX(id), 0) + 50 FROM fish;
+INSERT INTO id_generator (name, next_val) SELECT 'fish_image', COALESCE(MAX(id), 0) + 50 FROM fish_image;
+-- rollback DROP TABLE id_generator;
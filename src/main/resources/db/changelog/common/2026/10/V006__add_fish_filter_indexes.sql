@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V006__add_fish_filter_indexes.sql
+
+-- changeset artem:008
+-- comment: price and catch-date filters and sorts; the trailing id makes (key, id) keyset pages an index range
+CREATE INDEX idx_fish_price_id ON fish (price, id);
+CREATE INDEX idx_fish_catch_date_id ON fish (catch_date, id);
+-- rollback DROP INDEX idx_fish_catch_date_id ON fish;
+-- rollback DROP INDEX idx_fish_price_id ON fish;
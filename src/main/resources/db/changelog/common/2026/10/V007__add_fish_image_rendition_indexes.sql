@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V007__add_fish_image_rendition_indexes.sql
+
+-- changeset artem:009
+-- comment: the orphan-image reconciler looks files up by any of the three names a fish_image row references
+CREATE INDEX idx_fish_image_thumbnail_file_name ON fish_image (thumbnail_file_name);
+CREATE INDEX idx_fish_image_medium_file_name ON fish_image (medium_file_name);
+-- rollback DROP INDEX idx_fish_image_medium_file_name ON fish_image;
+-- rollback DROP INDEX idx_fish_image_thumbnail_file_name ON fish_image;
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V008__add_fish_deleted_at.sql
+
+-- changeset artem:010
+-- comment: soft delete; catalog queries skip rows with deleted_at set, the purge job finds them by this index
+ALTER TABLE fish ADD COLUMN deleted_at DATETIME NULL;
+CREATE INDEX idx_fish_deleted_at ON fish (deleted_at);
+-- rollback DROP INDEX idx_fish_deleted_at ON fish;
+-- rollback ALTER TABLE fish DROP COLUMN deleted_at;
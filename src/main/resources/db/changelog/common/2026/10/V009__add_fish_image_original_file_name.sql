@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V009__add_fish_image_original_file_name.sql
+
+-- changeset artem:011
+-- comment: the upload as received, kept beside its re-encoded image when fishmarket.images.optimize.keep-originals is on
+ALTER TABLE fish_image ADD COLUMN original_file_name VARCHAR(255) DEFAULT NULL;
+CREATE INDEX idx_fish_image_original_file_name ON fish_image (original_file_name);
+-- rollback DROP INDEX idx_fish_image_original_file_name ON fish_image;
+-- rollback ALTER TABLE fish_image DROP COLUMN original_file_name;
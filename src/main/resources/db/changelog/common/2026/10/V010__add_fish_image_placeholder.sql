@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+-- logicalFilePath: db/changelog/common/2026/10/V010__add_fish_image_placeholder.sql
+
+-- changeset artem:012
+-- comment: tiny PNG data URI computed at upload and inlined into the catalog while the image loads
+ALTER TABLE fish_image ADD COLUMN placeholder VARCHAR(512) DEFAULT NULL;
+-- rollback ALTER TABLE fish_image DROP COLUMN placeholder;
@@ -0,0 +1,85 @@
+-- EXPLAIN check for the catalog filters (FishSpecifications, V006__add_fish_filter_indexes.sql).
+-- Each statement is the query Hibernate sends for one filter/sort combination, first page or keyset continuation,
+-- with literal values and the `deleted_at IS NULL` that @SQLRestriction on Fish adds to every catalog query.
+-- Run against a filled MySQL 8.0 database (the mysql:8.0 of docker-compose) and compare the `key` and `Extra` columns:
+--   mysql -u root -p fishstore < src/main/resources/sql/explainFishFilters.sql
+-- The plans noted below are the ones expected from the MySQL 8.0 (InnoDB) optimizer on about 200 000 rows; they are
+-- not checked by the build, so re-run the file after changing FishSpecifications or the indexes and update the notes
+-- where MySQL disagrees. Descending orders read their index backwards ("Backward index scan"), so an order served by
+-- its index needs no filesort, and LIMIT stops the scan early.
+--
+-- The soft-delete predicate does not change the choice: almost every row has deleted_at NULL, so a ref on
+-- idx_fish_deleted_at would read nearly the whole table and MySQL keeps the filter and order indexes, checking
+-- deleted_at on the rows it reads. It does mean no index covers a catalog query on its own any more.
+--
+-- Limitation: a range on one column with the order on another is not an index range. No single index gives both a
+-- range on price or catch_date and an order by id or by the other column. That covers NEWEST with a price or date
+-- range, PRICE_* with only a date range and CAUGHT_* with only a price range. MySQL walks the ordering index (PRIMARY
+-- for NEWEST) from its first row and filters until it has 21 matches, so the rows read depend on where the matches
+-- sit in that order, not on the size of the range. When the range is narrow, MySQL reads it from the filter index
+-- and filesorts those few rows instead. The slow case is a mid-sized range whose rows come late in the order, e.g.
+-- an old date range under NEWEST: the walk reads most of the table before LIMIT is met. A range on the sort column
+-- itself (price filter with PRICE_*, date filter with CAUGHT_*) is always a bounded index range.
+
+-- none, NEWEST (derived query): range PRIMARY, Using where; Backward index scan
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.id < 150000 ORDER BY f.id DESC LIMIT 21;
+
+-- price, NEWEST: index PRIMARY, Using where; Backward index scan (walks PRIMARY, see the limitation above)
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL
+        AND f.price >= 100 AND f.price <= 200 ORDER BY f.id DESC LIMIT 21;
+-- narrow price range, NEWEST: range idx_fish_price_id, Using index condition; Using filesort (51 rows)
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL
+        AND f.price >= 100 AND f.price <= 100.5 ORDER BY f.id DESC LIMIT 21;
+
+-- date, NEWEST: index PRIMARY, Using where; Backward index scan (walks PRIMARY, see the limitation above)
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.catch_date >= '2026-10-01' AND f.catch_date < '2026-10-11'
+        ORDER BY f.id DESC LIMIT 21;
+-- narrow date range, NEWEST: range idx_fish_catch_date_id, Using index condition; Using filesort
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.catch_date >= '2024-11-01' AND f.catch_date < '2024-11-03'
+        ORDER BY f.id DESC LIMIT 21;
+
+-- price and date, NEWEST: index PRIMARY, Using where; Backward index scan (walks PRIMARY, see the limitation above)
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.price >= 100 AND f.price <= 200
+        AND f.catch_date >= '2026-01-01' AND f.catch_date < '2026-04-01' ORDER BY f.id DESC LIMIT 21;
+
+-- none, PRICE_ASC: index idx_fish_price_id (21 rows read)
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL ORDER BY f.price, f.id LIMIT 21;
+-- none, PRICE_ASC, next page: range idx_fish_price_id, Using index condition
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.price >= 100.03 AND (f.price > 100.03 OR f.id > 75137)
+        ORDER BY f.price, f.id LIMIT 21;
+
+-- price, PRICE_DESC: range idx_fish_price_id, Using where; Backward index scan
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL
+        AND f.price >= 100 AND f.price <= 200 ORDER BY f.price DESC, f.id DESC LIMIT 21;
+
+-- date, PRICE_ASC: index idx_fish_price_id, Using where
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.catch_date >= '2026-10-01' AND f.catch_date < '2026-10-11'
+        ORDER BY f.price, f.id LIMIT 21;
+
+-- price and date, PRICE_ASC, next page: range idx_fish_price_id, Using index condition; Using where
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.price >= 100 AND f.price <= 200
+        AND f.catch_date >= '2026-01-01' AND f.catch_date < '2026-04-01'
+        AND f.price >= 100.03 AND (f.price > 100.03 OR f.id > 75137) ORDER BY f.price, f.id LIMIT 21;
+
+-- none, CAUGHT_DESC: range idx_fish_catch_date_id, Using where; Backward index scan
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL
+        AND f.catch_date IS NOT NULL ORDER BY f.catch_date DESC, f.id DESC LIMIT 21;
+
+-- date, CAUGHT_DESC, next page: range idx_fish_catch_date_id, Using where; Backward index scan
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.catch_date >= '2026-10-01' AND f.catch_date IS NOT NULL
+        AND f.catch_date <= '2026-10-17 23:49' AND (f.catch_date < '2026-10-17 23:49' OR f.id < 189017)
+        ORDER BY f.catch_date DESC, f.id DESC LIMIT 21;
+
+-- price, CAUGHT_ASC: range idx_fish_catch_date_id, Using where
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL AND f.price >= 1500 AND f.catch_date IS NOT NULL
+        ORDER BY f.catch_date, f.id LIMIT 21;
+
+-- price and date, CAUGHT_ASC: range idx_fish_catch_date_id, Using index condition; Using where
+EXPLAIN SELECT * FROM fish f WHERE f.deleted_at IS NULL
+        AND f.price >= 1500 AND f.catch_date >= '2026-10-01' AND f.catch_date IS NOT NULL
+        ORDER BY f.catch_date, f.id LIMIT 21;
+
+-- "is there a previous page" check: range idx_fish_price_id, Using index condition; Using where (2 rows; deleted_at
+-- is read from the row, so the check is no longer index-only)
+EXPLAIN SELECT 1 FROM fish f WHERE f.deleted_at IS NULL AND f.price >= 100 AND f.price <= 200
+        AND f.price <= 100.01 AND (f.price < 100.01 OR f.id < 39779) LIMIT 1;
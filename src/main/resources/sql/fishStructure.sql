@@ -23,14 +23,64 @@ DROP TABLE IF EXISTS `fish`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
 CREATE TABLE `fish` (
-  `id` int NOT NULL AUTO_INCREMENT,
+  `id` bigint NOT NULL AUTO_INCREMENT,
   `catch_date` datetime(6) DEFAULT NULL,
-  `image_file_names` varchar(1020) DEFAULT NULL,
   `name` varchar(255) DEFAULT NULL,
   `price` double NOT NULL,
-  PRIMARY KEY (`id`)
+  `deleted_at` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_fish_price_id` (`price`,`id`),
+  KEY `idx_fish_catch_date_id` (`catch_date`,`id`),
+  KEY `idx_fish_deleted_at` (`deleted_at`)
 ) ENGINE=InnoDB AUTO_INCREMENT=12 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `fish_image`
+--
+
+DROP TABLE IF EXISTS `fish_image`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `fish_image` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `fish_id` bigint NOT NULL,
+  `sort_order` int NOT NULL,
+  `file_name` varchar(255) NOT NULL,
+  `size_bytes` bigint DEFAULT NULL,
+  `width` int DEFAULT NULL,
+  `height` int DEFAULT NULL,
+  `content_hash` char(64) DEFAULT NULL,
+  `thumbnail_file_name` varchar(255) DEFAULT NULL,
+  `medium_file_name` varchar(255) DEFAULT NULL,
+  `original_file_name` varchar(255) DEFAULT NULL,
+  `placeholder` varchar(512) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_fish_image_sort_order` (`fish_id`,`sort_order`),
+  KEY `idx_fish_image_file_name` (`file_name`),
+  KEY `idx_fish_image_content_hash` (`content_hash`),
+  KEY `idx_fish_image_thumbnail_file_name` (`thumbnail_file_name`),
+  KEY `idx_fish_image_medium_file_name` (`medium_file_name`),
+  KEY `idx_fish_image_original_file_name` (`original_file_name`),
+  CONSTRAINT `fk_fish_image_fish` FOREIGN KEY (`fish_id`) REFERENCES `fish` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `id_generator`
+--
+
+DROP TABLE IF EXISTS `id_generator`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `id_generator` (
+  `name` varchar(64) NOT NULL,
+  `next_val` bigint NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+INSERT INTO `id_generator` VALUES ('fish',61),('fish_image',50);
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -17,6 +17,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.DefaultSecurityFilterChain;
 import org.springframework.security.web.SecurityFilterChain;
+import technikal.task.fishmarket.profiling.ProfilingPasswordEncoder;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -74,6 +75,8 @@ class SecurityConfigBaseRockGeneratedTest {
         doReturn(httpSecurity).when(httpSecurity).authorizeHttpRequests(any());
         doReturn(httpSecurity).when(httpSecurity).formLogin(any());
         doReturn(httpSecurity).when(httpSecurity).logout(any());
+        doReturn(httpSecurity).when(httpSecurity).httpBasic(any());
+        doReturn(httpSecurity).when(httpSecurity).exceptionHandling(any());
         doReturn(httpSecurity).when(httpSecurity).csrf(any());
         doReturn(defaultSecurityFilterChain).when(httpSecurity).build();
         SecurityFilterChain result = spyConfig.filterChain(httpSecurity);
@@ -82,6 +85,8 @@ class SecurityConfigBaseRockGeneratedTest {
         verify(httpSecurity, atLeast(1)).authorizeHttpRequests(any());
         verify(httpSecurity, atLeast(1)).formLogin(any());
         verify(httpSecurity, atLeast(1)).logout(any());
+        verify(httpSecurity, atLeast(1)).httpBasic(any());
+        verify(httpSecurity, atLeast(1)).exceptionHandling(any());
         verify(httpSecurity, atLeast(1)).csrf(any());
         verify(httpSecurity, atLeast(1)).build();
     }
@@ -90,7 +95,8 @@ class SecurityConfigBaseRockGeneratedTest {
     void testPasswordEncoder() {
         PasswordEncoder result = securityConfig.passwordEncoder();
         assertNotNull(result);
-        assertThat(result, instanceOf(BCryptPasswordEncoder.class));
+        assertThat(result, instanceOf(ProfilingPasswordEncoder.class));
+        assertTrue(result.encode("testPassword").startsWith("$2a$"));
     }
 
     @Test
@@ -0,0 +1,159 @@
+package technikal.task.fishmarket.controller;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import technikal.task.fishmarket.config.CacheConfig;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@Timeout(10)
+class CatalogPageCacheFilterTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private Runnable duringRender = () -> {
+    };
+    private CacheManager cacheManager;
+    private CatalogPageCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager("maximumSize=10", "maximumSize=10", "maximumSize=10");
+        filter = new CatalogPageCacheFilter(cacheManager);
+    }
+
+    @Test
+    @DisplayName("renders the catalog once and serves repeats from the cache")
+    void servesRepeatsFromCache() throws Exception {
+        MockHttpServletResponse first = get(catalogRequest("ADMIN", "before=10"));
+        MockHttpServletResponse second = get(catalogRequest("ADMIN", "before=10"));
+
+        assertThat(renders.get(), is(1));
+        assertThat(second.getContentAsString(), is(first.getContentAsString()));
+        assertThat(second.getContentAsString(), is("<p>catalog ADMIN 1</p>"));
+        assertThat(second.getContentType(), is("text/html;charset=UTF-8"));
+    }
+
+    @Test
+    @DisplayName("keeps separate pages per role and cursor")
+    void keysByRoleAndCursor() throws Exception {
+        get(catalogRequest("ADMIN", null));
+        String user = get(catalogRequest("USER", null)).getContentAsString();
+        get(catalogRequest("USER", "before=10"));
+
+        assertThat(renders.get(), is(3));
+        assertThat(user, is("<p>catalog USER 2</p>"));
+    }
+
+    @Test
+    @DisplayName("serves the precompressed copy to clients accepting gzip")
+    void servesGzip() throws Exception {
+        get(catalogRequest("USER", null));
+        MockHttpServletRequest request = catalogRequest("USER", null);
+        request.addHeader("Accept-Encoding", "br, gzip;q=0.8");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getHeader("Content-Encoding"), is("gzip"));
+        assertThat(response.getHeader("Vary"), is("Accept-Encoding"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is("<p>catalog USER 1</p>"));
+        }
+    }
+
+    @Test
+    @DisplayName("does not cache error pages rendered by the exception handlers")
+    void skipsErrorPages() throws Exception {
+        MockHttpServletRequest request = catalogRequest("USER", null);
+        request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, new IllegalStateException("db down"));
+        get(request);
+        get(catalogRequest("USER", null));
+
+        assertThat(renders.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("does not store a page rendered while a write evicted the catalog")
+    void skipsPagesRenderedAcrossEviction() throws Exception {
+        duringRender = () -> cacheManager.getCache(CacheConfig.CATALOG_HTML_CACHE).clear();
+        String first = get(catalogRequest("USER", null)).getContentAsString();
+        duringRender = () -> {
+        };
+        get(catalogRequest("USER", null));
+        get(catalogRequest("USER", null));
+
+        assertThat(first, is("<p>catalog USER 1</p>"));
+        assertThat(renders.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("passes through other paths, methods, unparseable cursors and filtered listings")
+    void bypassesOtherRequests() throws Exception {
+        MockHttpServletRequest create = catalogRequest("ADMIN", null);
+        create.setRequestURI("/fish/create");
+        MockHttpServletRequest post = catalogRequest("ADMIN", null);
+        post.setMethod("POST");
+        MockHttpServletRequest invalid = catalogRequest("ADMIN", "before=abc");
+        MockHttpServletRequest filtered = catalogRequest("ADMIN", "maxPrice=100");
+
+        for (int i = 0; i < 2; i++) {
+            get(create);
+            get(post);
+            get(invalid);
+            get(filtered);
+        }
+
+        assertThat(renders.get(), is(8));
+    }
+
+    @Test
+    @DisplayName("acceptsGzip honours q=0")
+    void acceptsGzipParsing() {
+        assertThat(CatalogPageCacheFilter.acceptsGzip("gzip, deflate"), is(true));
+        assertThat(CatalogPageCacheFilter.acceptsGzip("GZIP;q=0.5"), is(true));
+        assertThat(CatalogPageCacheFilter.acceptsGzip("gzip;q=0"), is(false));
+        assertThat(CatalogPageCacheFilter.acceptsGzip("identity"), is(false));
+        assertThat(CatalogPageCacheFilter.acceptsGzip(null), is(false));
+    }
+
+    private MockHttpServletRequest catalogRequest(String role, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fish");
+        request.setUserPrincipal(() -> role.toLowerCase());
+        request.addUserRole(role);
+        if (query != null) {
+            request.setQueryString(query);
+            String[] pair = query.split("=");
+            request.setParameter(pair[0], pair[1]);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                String role = req.isUserInRole("ADMIN") ? "ADMIN" : "USER";
+                duringRender.run();
+                res.setContentType("text/html;charset=UTF-8");
+                res.getWriter().write("<p>catalog " + role + " " + renders.incrementAndGet() + "</p>");
+            }
+        }));
+        return response;
+    }
+}
@@ -0,0 +1,113 @@
+package technikal.task.fishmarket.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletResponse;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishPageView;
+import technikal.task.fishmarket.model.FishView;
+import technikal.task.fishmarket.repository.FishExportRepository;
+import technikal.task.fishmarket.service.FishImportService;
+import technikal.task.fishmarket.service.FishService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class FishApiControllerTest {
+
+    @Mock
+    private FishService fishService;
+
+    @Mock
+    private FishExportRepository fishExportRepository;
+
+    @Mock
+    private FishImportService fishImportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FishApiController fishApiController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        fishApiController = new FishApiController(fishService, fishExportRepository, fishImportService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("getFishPage maps the keyset page and its cursors")
+    void getFishPageMapsPage() {
+        when(fishService.getFishPage(FishFilter.NONE, 50L, null, 2)).thenReturn(new FishPage(List.of(fish(49L), fish(48L)), 2, 49L, 48L));
+
+        FishPageView page = fishApiController.getFishPage(FishFilter.NONE, 50L, null, 2);
+
+        assertThat(page.items(), hasSize(2));
+        assertThat(page.items().get(0).images().get(0).fileName(), is("img-49.jpg"));
+        assertThat(page.prevCursor(), is(49L));
+        assertThat(page.nextCursor(), is(48L));
+    }
+
+    @Test
+    @DisplayName("getFish returns a single fish projection")
+    void getFishReturnsView() {
+        when(fishService.getFish(7L)).thenReturn(fish(7L));
+
+        FishView view = fishApiController.getFish(7L);
+
+        assertThat(view.id(), is(7L));
+        assertThat(view.name(), is("Fish 7"));
+    }
+
+    @Test
+    @DisplayName("exportFish writes one JSON document per line")
+    @SuppressWarnings("unchecked")
+    void exportFishWritesNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<FishView> consumer = invocation.getArgument(0);
+            consumer.accept(FishView.of(fish(1L)));
+            consumer.accept(new FishView(2L, "Без фото", 3.5, null, List.of()));
+            return null;
+        }).when(fishExportRepository).forEachFish(any(Consumer.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fishApiController.exportFish(response);
+
+        assertThat(response.getContentType(), is("application/x-ndjson;charset=UTF-8"));
+        String[] lines = response.getContentAsString().split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[1].startsWith("{"), is(true));
+        assertThat(response.getContentAsString().endsWith("\n"), is(true));
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertThat(second.get("name").asText(), is("Без фото"));
+        assertThat(second.get("images").size(), is(0));
+        assertThat(objectMapper.readTree(lines[0]).get("images").get(0).get("fileName").asText(), is("img-1.jpg"));
+    }
+
+    private static Fish fish(Long id) {
+        Fish fish = new Fish();
+        fish.setId(id);
+        fish.setName("Fish " + id);
+        fish.setPrice(10.0);
+        fish.setCatchDate(new Date(0));
+        FishImage image = new FishImage();
+        image.setFileName("img-" + id + ".jpg");
+        fish.addImage(image);
+        return fish;
+    }
+}
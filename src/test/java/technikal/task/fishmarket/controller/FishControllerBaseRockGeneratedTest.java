@@ -1,5 +1,6 @@
 package technikal.task.fishmarket.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -8,21 +9,38 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
-import org.springframework.web.multipart.MultipartFile;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.ui.ExtendedModelMap;
 import technikal.task.fishmarket.model.FishDto;
 import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSearchPage;
+import technikal.task.fishmarket.model.FishSort;
+import technikal.task.fishmarket.service.FishMetrics;
 import technikal.task.fishmarket.service.FishService;
+import technikal.task.fishmarket.service.FishUploadService;
+import technikal.task.fishmarket.service.FishUploadService.FishUpload;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.doThrow;
@@ -33,18 +51,28 @@ class FishControllerBaseRockGeneratedTest {
     @Mock
     private FishService fishService;
 
+    @Mock
+    private FishUploadService fishUploadService;
+
     @Mock
     private Model model;
 
     @Mock
     private BindingResult bindingResult;
 
+    private SimpleMeterRegistry registry;
+
+    private FishMetrics fishMetrics;
+
     private FishController fishController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        fishController = new FishController(fishService);
+        registry = new SimpleMeterRegistry();
+        fishMetrics = new FishMetrics(registry);
+        fishController = new FishController(fishService, fishUploadService, fishMetrics,
+                Validation.buildDefaultValidatorFactory().getValidator());
     }
 
     @Test
@@ -54,21 +82,48 @@ class FishControllerBaseRockGeneratedTest {
         fish.setName("Test Fish");
         fish.setPrice(10.50);
         expectedFishList.add(fish);
-        when(fishService.getAllFish()).thenReturn(expectedFishList);
-        String result = fishController.showFishList(model);
+        FishPage page = new FishPage(expectedFishList, 20, null, null);
+        when(fishService.getFishPage(FishFilter.NONE, null, null, null)).thenReturn(page);
+        String result = fishController.showFishList(FishFilter.NONE, null, null, null, model);
         assertThat(result, is("index"));
         verify(model, atLeast(1)).addAttribute("fishlist", expectedFishList);
-        verify(fishService, atLeast(1)).getAllFish();
+        verify(model, atLeast(1)).addAttribute("fishPage", page);
+        verify(fishService, atLeast(1)).getFishPage(FishFilter.NONE, null, null, null);
     }
 
     @Test
     void testShowFishListWithEmptyList() {
         List<Fish> emptyFishList = new ArrayList<>();
-        when(fishService.getAllFish()).thenReturn(emptyFishList);
-        String result = fishController.showFishList(model);
+        when(fishService.getFishPage(FishFilter.NONE, null, null, null)).thenReturn(new FishPage(emptyFishList, 20, null, null));
+        String result = fishController.showFishList(FishFilter.NONE, null, null, null, model);
         assertThat(result, is("index"));
         verify(model, atLeast(1)).addAttribute("fishlist", emptyFishList);
-        verify(fishService, atLeast(1)).getAllFish();
+        verify(fishService, atLeast(1)).getFishPage(FishFilter.NONE, null, null, null);
+    }
+
+    @Test
+    void testFilterQueryKeepsOnlyActiveFilters() {
+        FishFilter filter = new FishFilter(10.5, null, LocalDate.of(2026, 10, 1), null, FishSort.PRICE_DESC);
+        assertThat(FishController.filterQuery(filter), is("&minPrice=10.5&caughtFrom=2026-10-01&sort=PRICE_DESC"));
+        assertThat(FishController.filterQuery(FishFilter.NONE), is(""));
+    }
+
+    @Test
+    void testSearchFish() {
+        FishSearchPage page = new FishSearchPage("короп", new ArrayList<>(), 0, 20, 0);
+        when(fishService.searchFish("короп", null, null)).thenReturn(page);
+        String result = fishController.searchFish("короп", null, null, model);
+        assertThat(result, is("index"));
+        verify(model, atLeast(1)).addAttribute("searchPage", page);
+        verify(model, atLeast(1)).addAttribute("fishlist", page.getItems());
+    }
+
+    @Test
+    void testShowFishListPassesCursorToService() {
+        when(fishService.getFishPage(FishFilter.NONE, 50L, null, 10)).thenReturn(new FishPage(new ArrayList<>(), 10, 50L, null));
+        String result = fishController.showFishList(FishFilter.NONE, 50L, null, 10, model);
+        assertThat(result, is("index"));
+        verify(fishService, atLeast(1)).getFishPage(FishFilter.NONE, 50L, null, 10);
     }
 
     @Test
@@ -83,26 +138,12 @@ class FishControllerBaseRockGeneratedTest {
         FishDto fishDto = new FishDto();
         fishDto.setName("Test Fish");
         fishDto.setPrice(15.0);
-        List<MultipartFile> imageFiles = new ArrayList<>();
-        MultipartFile mockFile = mock(MultipartFile.class);
-        imageFiles.add(mockFile);
-        fishDto.setImageFiles(imageFiles);
+        List<FishImage> images = List.of(new FishImage());
         when(bindingResult.hasErrors()).thenReturn(false);
-        String result = fishController.addFish(fishDto, bindingResult);
+        String result = fishController.addFish(fishDto, images, bindingResult, fishMetrics.start());
         assertThat(result, is("redirect:/fish"));
-        verify(fishService, atLeast(1)).addFish(fishDto);
-    }
-
-    @Test
-    void testAddFishWithNullImageFiles() {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Test Fish");
-        fishDto.setPrice(15.0);
-        fishDto.setImageFiles(null);
-        when(bindingResult.hasErrors()).thenReturn(true);
-        String result = fishController.addFish(fishDto, bindingResult);
-        assertThat(result, is("createFish"));
-        verify(bindingResult, atLeast(1)).addError(any(FieldError.class));
+        verify(fishService, atLeast(1)).addFish(fishDto, images);
+        assertThat(registry.get(FishMetrics.FISH_ADD).tag("outcome", "committed").timer().count(), is(1L));
     }
 
     @Test
@@ -110,25 +151,22 @@ class FishControllerBaseRockGeneratedTest {
         FishDto fishDto = new FishDto();
         fishDto.setName("Test Fish");
         fishDto.setPrice(15.0);
-        fishDto.setImageFiles(new ArrayList<>());
         when(bindingResult.hasErrors()).thenReturn(true);
-        String result = fishController.addFish(fishDto, bindingResult);
+        String result = fishController.addFish(fishDto, new ArrayList<>(), bindingResult, fishMetrics.start());
         assertThat(result, is("createFish"));
         verify(bindingResult, atLeast(1)).addError(any(FieldError.class));
     }
 
     @Test
-    void testAddFishWithValidationErrors() {
+    void testAddFishWithValidationErrorsDiscardsStoredImages() {
         FishDto fishDto = new FishDto();
         fishDto.setName("Test Fish");
         fishDto.setPrice(15.0);
-        List<MultipartFile> imageFiles = new ArrayList<>();
-        MultipartFile mockFile = mock(MultipartFile.class);
-        imageFiles.add(mockFile);
-        fishDto.setImageFiles(imageFiles);
+        List<FishImage> images = List.of(new FishImage());
         when(bindingResult.hasErrors()).thenReturn(true);
-        String result = fishController.addFish(fishDto, bindingResult);
+        String result = fishController.addFish(fishDto, images, bindingResult, fishMetrics.start());
         assertThat(result, is("createFish"));
+        verify(fishUploadService, atLeast(1)).discard(images);
     }
 
     @Test
@@ -136,45 +174,74 @@ class FishControllerBaseRockGeneratedTest {
         FishDto fishDto = new FishDto();
         fishDto.setName("Test Fish");
         fishDto.setPrice(15.0);
-        List<MultipartFile> imageFiles = new ArrayList<>();
-        MultipartFile mockFile = mock(MultipartFile.class);
-        imageFiles.add(mockFile);
-        fishDto.setImageFiles(imageFiles);
+        List<FishImage> images = List.of(new FishImage());
         when(bindingResult.hasErrors()).thenReturn(false).thenReturn(true);
-        doThrow(new RuntimeException("Service error")).when(fishService).addFish(fishDto);
-        String result = fishController.addFish(fishDto, bindingResult);
+        doThrow(new RuntimeException("Service error")).when(fishService).addFish(fishDto, images);
+        String result = fishController.addFish(fishDto, images, bindingResult, fishMetrics.start());
         assertThat(result, is("createFish"));
         verify(bindingResult, atLeast(1)).addError(any(FieldError.class));
-        verify(fishService, atLeast(1)).addFish(fishDto);
+        verify(fishService, atLeast(1)).addFish(fishDto, images);
+        verify(fishUploadService).discard(images);
+        assertThat(registry.get(FishMetrics.FISH_ADD).tag("outcome", "rolled_back").timer().count(), is(1L));
+    }
+
+    @Test
+    void testAddFishBindsAndValidatesStreamedFields() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/fish/create");
+        request.setContentType("multipart/form-data; boundary=b");
+        request.setContent("body".getBytes(StandardCharsets.UTF_8));
+        when(fishUploadService.receive(eq("multipart/form-data; boundary=b"), eq(4L), any(InputStream.class)))
+                .thenReturn(new FishUpload(Map.of("name", "", "price", "-1"), List.of(new FishImage())));
+        ExtendedModelMap model = new ExtendedModelMap();
+
+        String result = fishController.addFish(request, model);
+
+        assertThat(result, is("createFish"));
+        BindingResult errors = (BindingResult) model.get(BindingResult.MODEL_KEY_PREFIX + "fishDto");
+        assertThat(errors.getFieldErrorCount("name"), is(1));
+        assertThat(errors.getFieldErrorCount("price"), is(1));
+        verify(fishUploadService, atLeast(1)).discard(any());
     }
 
     @Test
     void testDeleteFish() {
         Long fishId = 1L;
-        String result = fishController.deleteFish(fishId);
-        assertThat(result, is("redirect:/fish"));
+        fishController.deleteFish(fishId);
         verify(fishService, atLeast(1)).deleteFish(fishId);
     }
 
     @Test
     void testDeleteFishWithZeroId() {
         Long fishId = 0L;
-        String result = fishController.deleteFish(fishId);
-        assertThat(result, is("redirect:/fish"));
+        fishController.deleteFish(fishId);
         verify(fishService, atLeast(1)).deleteFish(fishId);
     }
 
     @Test
     void testDeleteFishWithNegativeId() {
         Long fishId = -1L;
-        String result = fishController.deleteFish(fishId);
-        assertThat(result, is("redirect:/fish"));
+        fishController.deleteFish(fishId);
         verify(fishService, atLeast(1)).deleteFish(fishId);
     }
 
+    @Test
+    void testDeleteSelectedFish() {
+        List<Long> ids = List.of(1L, 2L, 3L);
+        String result = fishController.deleteFish(ids);
+        assertThat(result, is("redirect:/fish"));
+        verify(fishService).deleteFish(ids);
+    }
+
+    @Test
+    void testDeleteSelectedFishWithNothingSelected() {
+        String result = fishController.deleteFish((List<Long>) null);
+        assertThat(result, is("redirect:/fish"));
+        verify(fishService, never()).deleteFish(anyCollection());
+    }
+
     @Test
     void testConstructorCreatesInstance() {
-        FishController controller = new FishController(fishService);
+        FishController controller = new FishController(fishService, fishUploadService, fishMetrics, mock(Validator.class));
         assertThat(controller, is(notNullValue()));
     }
 
@@ -0,0 +1,59 @@
+package technikal.task.fishmarket.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.exception.ImageStorageException;
+import technikal.task.fishmarket.model.FishFromUploadsRequest;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.service.ChunkedUploadService;
+import technikal.task.fishmarket.service.FishMetrics;
+import technikal.task.fishmarket.service.FishService;
+import technikal.task.fishmarket.service.FishUploadService;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class FishUploadApiControllerTest {
+
+    @Mock
+    private ChunkedUploadService chunkedUploadService;
+
+    @Mock
+    private FishService fishService;
+
+    @Mock
+    private FishUploadService fishUploadService;
+
+    private FishUploadApiController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        controller = new FishUploadApiController(chunkedUploadService, fishService, fishUploadService,
+                new FishMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("createFish discards the assembled images and keeps the uploads when the fish cannot be saved")
+    void createFishDiscardsImagesOnFailure() {
+        List<FishImage> images = List.of(new FishImage());
+        when(chunkedUploadService.assemble(List.of("u1"))).thenReturn(images);
+        when(fishService.addFish(any(), any())).thenThrow(new ImageStorageException("db down"));
+
+        assertThrows(ImageStorageException.class,
+                () -> controller.createFish(new FishFromUploadsRequest("Короп", 120, List.of("u1"))));
+
+        verify(fishUploadService).discard(images);
+        verify(chunkedUploadService, never()).finish(any());
+    }
+}
@@ -0,0 +1,216 @@
+package technikal.task.fishmarket.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import technikal.task.fishmarket.service.FishMetrics;
+import technikal.task.fishmarket.service.RenditionCache;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@Timeout(10)
+class ImageControllerTest {
+
+    private static final String NAME = "3a6eb0790f39ac87c94f3856b2dd2c5d110e6811602261a9a923d3bb23adc8b7.jpg";
+
+    @TempDir
+    Path root;
+
+    private ShardedImageStorage storage;
+    private ImageController imageController;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new ShardedImageStorage(root);
+        Path image = storage.pathFor(NAME);
+        Files.createDirectories(image.getParent());
+        Files.writeString(image, "0123456789");
+        RenditionCache renditionCache = new RenditionCache(new FishMetrics(new SimpleMeterRegistry()),
+                root.resolve("renditions").toString(), 16, 4, 1);
+        imageController = new ImageController(storage, renditionCache);
+    }
+
+    @Test
+    @DisplayName("serves content-addressed images as immutable with a strong ETag")
+    void servesImmutableImage() throws IOException {
+        MockHttpServletResponse response = serve(NAME, new MockHttpServletRequest("GET", "/images/" + NAME));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getContentAsString(), is("0123456789"));
+        assertThat(response.getContentType(), is("image/jpeg"));
+        assertThat(response.getHeader("Cache-Control"), is(ImageController.IMMUTABLE_CACHE));
+        assertThat(response.getHeader("ETag"), is("\"" + NAME + "\""));
+        assertThat(response.getHeader("Accept-Ranges"), is("bytes"));
+    }
+
+    @Test
+    @DisplayName("answers a matching If-None-Match with 304 and no body")
+    void answersNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + NAME);
+        request.addHeader("If-None-Match", "\"other\", \"" + NAME + "\"");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertThat(response.getStatus(), is(304));
+        assertThat(response.getContentAsByteArray().length, is(0));
+    }
+
+    @Test
+    @DisplayName("serves a single byte range with 206")
+    void servesByteRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + NAME);
+        request.addHeader("Range", "bytes=2-5");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertThat(response.getStatus(), is(206));
+        assertThat(response.getContentAsString(), is("2345"));
+        assertThat(response.getHeader("Content-Range"), is("bytes 2-5/10"));
+        assertThat(response.getContentLengthLong(), is(4L));
+    }
+
+    @Test
+    @DisplayName("ignores the range when If-Range names an older representation")
+    void ignoresStaleIfRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + NAME);
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"stale\"");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getContentAsString(), is("0123456789"));
+    }
+
+    @Test
+    @DisplayName("rejects unsatisfiable ranges with 416")
+    void rejectsUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + NAME);
+        request.addHeader("Range", "bytes=20-");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertThat(response.getStatus(), is(416));
+        assertThat(response.getHeader("Content-Range"), is("bytes */10"));
+    }
+
+    @Test
+    @DisplayName("ignores a range whose last position is before its first and serves the whole file")
+    void ignoresInvalidRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + NAME);
+        request.addHeader("Range", "bytes=5-3");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getContentAsString(), is("0123456789"));
+        assertThat(response.getHeader("Content-Range"), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("hands large bodies to Tomcat sendfile when the connector supports it")
+    void usesSendfileWhenSupported() throws IOException {
+        Path large = root.resolve("large.jpg");
+        Files.write(large, new byte[64 * 1024]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/large.jpg");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        MockHttpServletResponse response = serve("large.jpg", request);
+
+        assertThat(response.getContentAsByteArray().length, is(0));
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename"), is(large.toAbsolutePath().toString()));
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end"), is(64L * 1024));
+        assertThat(response.getHeader("Cache-Control"), is(ImageController.DEFAULT_CACHE));
+    }
+
+    @Test
+    @DisplayName("returns 404 for missing files and path tricks")
+    void returnsNotFound() throws IOException {
+        assertThat(serve("missing.jpg", new MockHttpServletRequest()).getStatus(), is(404));
+        assertThat(serve("..\\secret", new MockHttpServletRequest()).getStatus(), is(404));
+        assertThat(serve(".upload-1.tmp", new MockHttpServletRequest()).getStatus(), is(404));
+    }
+
+    @Test
+    @DisplayName("serves a narrower JPEG rendition for ?w= and the stored file when it is not wider")
+    void servesRendition() throws IOException {
+        String photo = NAME.replace("3a6e", "4b7f");
+        Path image = storage.pathFor(photo);
+        Files.createDirectories(image.getParent());
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "jpg", image.toFile());
+
+        MockHttpServletResponse rendition = serve(photo, 200, new MockHttpServletRequest());
+        MockHttpServletResponse stored = serve(photo, 1000, new MockHttpServletRequest());
+
+        assertThat(rendition.getStatus(), is(200));
+        assertThat(rendition.getContentType(), is("image/jpeg"));
+        assertThat(rendition.getHeader("ETag"), is("\"" + photo + "-w320\""));
+        assertThat(rendition.getHeader("Cache-Control"), is(ImageController.IMMUTABLE_CACHE));
+        assertThat(ImageIO.read(new ByteArrayInputStream(rendition.getContentAsByteArray())).getWidth(), is(320));
+        assertThat(stored.getContentLengthLong(), is(Files.size(image)));
+        assertThat(serve(photo, 0, new MockHttpServletRequest()).getStatus(), is(400));
+    }
+
+    @Test
+    @DisplayName("answers a revalidated rendition with 304 from the original's validator, without rendering it")
+    void answersRenditionNotModifiedWithoutRendering() throws IOException {
+        String photo = NAME.replace("3a6e", "4b7f");
+        Path image = storage.pathFor(photo);
+        Files.createDirectories(image.getParent());
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "jpg", image.toFile());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"" + photo + "-w320\"");
+
+        MockHttpServletResponse response = serve(photo, 300, request);
+
+        assertThat(response.getStatus(), is(304));
+        assertThat(response.getHeader("ETag"), is("\"" + photo + "-w320\""));
+        assertThat(response.getContentAsByteArray().length, is(0));
+        assertThat(Files.exists(root.resolve("renditions")), is(false));
+        assertThat(ImageController.renditionEtag("\"a-1\"", 160), is("\"a-1-w160\""));
+    }
+
+    @Test
+    @DisplayName("srcset lists the rendition widths below the stored width, then the stored file")
+    void srcsetStopsAtStoredWidth() {
+        assertThat(ImageController.srcset("a.jpg", 400),
+                is("/images/a.jpg?w=160 160w, /images/a.jpg?w=320 320w, /images/a.jpg 400w"));
+        assertThat(ImageController.srcset("a b.jpg", null).startsWith("/images/a%20b.jpg?w=160 160w, "), is(true));
+    }
+
+    @Test
+    @DisplayName("parseRange handles open-ended, suffix and malformed ranges")
+    void parseRangeVariants() {
+        assertThat(ImageController.parseRange("bytes=4-", 10), is(new long[]{4, 9}));
+        assertThat(ImageController.parseRange("bytes=-3", 10), is(new long[]{7, 9}));
+        assertThat(ImageController.parseRange("bytes=5-100", 10), is(new long[]{5, 9}));
+        assertThat(ImageController.parseRange("bytes=0-1,4-5", 10), is(new long[0]));
+        assertThat(ImageController.parseRange("bytes=6-2", 10), is(new long[0]));
+        assertThat(ImageController.parseRange("bytes=10-", 10), is(nullValue()));
+    }
+
+    private MockHttpServletResponse serve(String fileName, MockHttpServletRequest request) throws IOException {
+        return serve(fileName, null, request);
+    }
+
+    private MockHttpServletResponse serve(String fileName, Integer width, MockHttpServletRequest request)
+            throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageController.serveImage(fileName, width, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,366 @@
+package technikal.task.fishmarket.load;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Load harness for capacity planning: boots the whole application on a random port against in-memory H2 in MySQL
+ * mode (the Liquibase changelogs run as usual) with images under {@code target/load-images}, then lets {@code load.users} virtual
+ * users log in, list, upload and delete for {@code load.seconds} after a {@code load.warmup-seconds} warm-up.
+ * Prints throughput and latency percentiles per endpoint and writes them to {@code target/load-report-<mode>.csv},
+ * where the mode is {@code platform} or, with {@code -Dload.virtual-threads=true}, {@code virtual}: running both
+ * with more users than {@code load.tomcat-threads} compares the two under the same upload/list mix.
+ * Tagged {@code load}: skipped by the normal build, run with {@code mvn -Pload test}. Needs no network or MySQL.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "spring.threads.virtual.enabled=${load.virtual-threads:false}",
+        "server.tomcat.threads.max=${load.tomcat-threads:200}",
+        "fishmarket.images.dir=target/load-images",
+        "logging.level.technikal.task.fishmarket.service.ThumbnailService=error"
+})
+class CatalogLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 16);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+    private static final int SEED_FISH = Integer.getInteger("load.seed-fish", 500);
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtual-threads");
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+    private static final Pattern FISH_ID = Pattern.compile("deleteFish\\((\\d+)\\)");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FishRepository fishRepository;
+
+    private final AtomicLong uploads = new AtomicLong();
+    private byte[] photo;
+
+    enum Endpoint {
+        LOGIN(5), LIST(70), CREATE(15), DELETE(10);
+
+        private final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+
+        static Endpoint pick() {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            for (Endpoint endpoint : values()) {
+                roll -= endpoint.weight;
+                if (roll < 0) {
+                    return endpoint;
+                }
+            }
+            return LIST;
+        }
+    }
+
+    @Test
+    @DisplayName("mixed login, list, upload and delete traffic stays within the error budget")
+    void catalogUnderLoad() throws Exception {
+        seed();
+        photo = jpeg();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(WARMUP_SECONDS).toNanos();
+        long stopAt = measureFrom + Duration.ofSeconds(SECONDS).toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        List<Future<Stats>> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            int user = i;
+            users.add(executor.submit(() -> new VirtualUser(user).run(measureFrom, stopAt)));
+        }
+        Stats total = new Stats();
+        for (Future<Stats> user : users) {
+            total.merge(user.get());
+        }
+        executor.shutdown();
+
+        total.report(SECONDS);
+        assertThat(total.requests(), greaterThan(0L));
+        assertThat(total.errorRate(), lessThanOrEqualTo(MAX_ERROR_RATE));
+    }
+
+    /**
+     * Fish to list and delete from the start; their image files do not exist, which the listing does not notice.
+     * Renditions of uploads deleted before the thumbnail worker got to them fail, hence the quieter log level.
+     */
+    private void seed() {
+        List<Fish> fish = new ArrayList<>();
+        for (int i = 0; i < SEED_FISH; i++) {
+            Fish seeded = new Fish();
+            seeded.setName("Короп " + i);
+            seeded.setPrice(50 + i % 300);
+            seeded.setCatchDate(new Date());
+            FishImage image = new FishImage();
+            image.setFileName(String.format("%064x.jpg", i));
+            seeded.addImage(image);
+            fish.add(seeded);
+        }
+        fishRepository.saveAll(fish);
+    }
+
+    /**
+     * One browser session. Each user deletes only ids with {@code id % USERS == user}, so two users never race
+     * for the same fish and every failed delete is a real error. Ids already deleted are remembered because the
+     * cached catalog page may still list them for a moment.
+     */
+    private final class VirtualUser {
+
+        private final int user;
+        private final CookieManager cookies = new CookieManager();
+        private final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(cookies)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        private final List<Long> deletable = new ArrayList<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private final Stats stats = new Stats();
+
+        private VirtualUser(int user) {
+            this.user = user;
+        }
+
+        private Stats run(long measureFrom, long stopAt) throws Exception {
+            login();
+            list();
+            while (System.nanoTime() < stopAt) {
+                Endpoint endpoint = Endpoint.pick();
+                if (endpoint == Endpoint.DELETE && deletable.isEmpty()) {
+                    endpoint = Endpoint.LIST;
+                }
+                long start = System.nanoTime();
+                boolean ok = switch (endpoint) {
+                    case LOGIN -> login();
+                    case LIST -> list();
+                    case CREATE -> create();
+                    case DELETE -> delete();
+                };
+                if (start >= measureFrom) {
+                    stats.record(endpoint, System.nanoTime() - start, ok);
+                }
+            }
+            return stats;
+        }
+
+        private boolean login() throws Exception {
+            cookies.getCookieStore().removeAll();
+            HttpResponse<Void> response = send(HttpRequest.newBuilder(uri("/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("username=admin&password=admin")), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 302
+                    && response.headers().firstValue("Location").orElse("").endsWith("/fish");
+        }
+
+        private boolean list() throws Exception {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/fish")).GET(),
+                    HttpResponse.BodyHandlers.ofString());
+            deletable.clear();
+            Matcher ids = FISH_ID.matcher(response.body());
+            while (ids.find()) {
+                long id = Long.parseLong(ids.group(1));
+                if (id % USERS == user && !deleted.contains(id)) {
+                    deletable.add(id);
+                }
+            }
+            return response.statusCode() == 200;
+        }
+
+        private boolean create() throws Exception {
+            String boundary = "load-" + Long.toHexString(System.nanoTime());
+            byte[] body = multipart(boundary, "Короп " + user, uploads.incrementAndGet());
+            HttpResponse<Void> response = send(HttpRequest.newBuilder(uri("/fish/create"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body)), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 302;
+        }
+
+        private boolean delete() throws Exception {
+            long id = deletable.remove(deletable.size() - 1);
+            deleted.add(id);
+            HttpResponse<Void> response = send(HttpRequest.newBuilder(uri("/fish/delete?id=" + id)).DELETE(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 204;
+        }
+
+        private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+                throws Exception {
+            return client.send(request.timeout(Duration.ofSeconds(30)).build(), handler);
+        }
+
+        private URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+
+        /**
+         * A two-photo upload; the counter after the JPEG end marker keeps content addressing from deduplicating it.
+         */
+        private byte[] multipart(String boundary, String name, long counter) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(photo.length * 2 + 1024);
+            field(out, boundary, "name", name);
+            field(out, boundary, "price", "120.5");
+            for (int i = 0; i < 2; i++) {
+                write(out, "--" + boundary + "\r\nContent-Disposition: form-data; name=\"imageFiles\"; filename=\"fish.jpg\""
+                        + "\r\nContent-Type: image/jpeg\r\n\r\n");
+                out.writeBytes(photo);
+                write(out, counter + "-" + i + "\r\n");
+            }
+            write(out, "--" + boundary + "--\r\n");
+            return out.toByteArray();
+        }
+
+        private void field(ByteArrayOutputStream out, String boundary, String name, String value) {
+            write(out, "--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                    + value + "\r\n");
+        }
+
+        private void write(ByteArrayOutputStream out, String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Latencies per endpoint, kept per user and merged at the end, so recording is contention-free.
+     */
+    private static final class Stats {
+
+        private final Map<Endpoint, long[]> latencies = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Integer> counts = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Integer> errors = new EnumMap<>(Endpoint.class);
+
+        private void record(Endpoint endpoint, long nanos, boolean ok) {
+            int count = counts.getOrDefault(endpoint, 0);
+            long[] values = latencies.computeIfAbsent(endpoint, key -> new long[1024]);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(endpoint, values);
+            }
+            values[count] = nanos;
+            counts.put(endpoint, count + 1);
+            if (!ok) {
+                errors.merge(endpoint, 1, Integer::sum);
+            }
+        }
+
+        private void merge(Stats other) {
+            other.counts.forEach((endpoint, count) -> {
+                long[] values = other.latencies.get(endpoint);
+                for (int i = 0; i < count; i++) {
+                    record(endpoint, values[i], true);
+                }
+            });
+            other.errors.forEach((endpoint, count) -> errors.merge(endpoint, count, Integer::sum));
+        }
+
+        private long requests() {
+            return counts.values().stream().mapToLong(Integer::longValue).sum();
+        }
+
+        private double errorRate() {
+            long requests = requests();
+            return requests == 0 ? 0 : errors.values().stream().mapToLong(Integer::longValue).sum() / (double) requests;
+        }
+
+        private void report(int seconds) throws IOException {
+            String mode = VIRTUAL_THREADS ? "virtual" : "platform";
+            Path reportFile = Path.of("target", "load-report-" + mode + ".csv");
+            Files.createDirectories(reportFile.getParent());
+            try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(reportFile))) {
+                csv.println("endpoint,requests,errors,rps,p50_ms,p90_ms,p99_ms,max_ms");
+                System.out.printf("%nLoad test: %d users, %d s measured, %s threads%n", USERS, seconds, mode);
+                System.out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s%n",
+                        "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+                for (Endpoint endpoint : Endpoint.values()) {
+                    int count = counts.getOrDefault(endpoint, 0);
+                    long[] sorted = Arrays.copyOf(latencies.getOrDefault(endpoint, new long[0]), count);
+                    Arrays.sort(sorted);
+                    String line = String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f", endpoint, count,
+                            errors.getOrDefault(endpoint, 0), count / (double) seconds, percentile(sorted, 0.50),
+                            percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+                    csv.println(line);
+                    String[] cells = line.split(",");
+                    System.out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s%n", (Object[]) cells);
+                }
+                System.out.println("Report written to " + reportFile.toAbsolutePath());
+            }
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private static byte[] jpeg() {
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x / 4 << 16) | (y / 3 << 8) | random.nextInt(32));
+            }
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package technikal.task.fishmarket.profiling;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+@Timeout(30)
+class FlightRecorderServiceTest {
+
+    private final FlightRecorderService service = new FlightRecorderService(16);
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    @DisplayName("the summary lists the slowest requests first, with queries run while rendering counted as database time")
+    void summarizesRequestsByPhase() throws Exception {
+        service.start("default", Duration.ofMinutes(5));
+
+        request("/fish", () -> {
+            TemplateRenderEvent template = new TemplateRenderEvent();
+            template.begin();
+            pause(10);
+            JdbcEvent query = new JdbcEvent();
+            query.operation = "execute";
+            query.begin();
+            pause(40);
+            query.finish();
+            template.finish();
+        });
+        request("/api/fish", () -> {
+            PasswordHashEvent hash = new PasswordHashEvent();
+            hash.begin();
+            pause(5);
+            hash.finish();
+        });
+        new JdbcEvent().finish();
+
+        List<RequestBreakdown> slowest = service.slowestRequests(10).orElseThrow();
+
+        assertThat(slowest, hasSize(2));
+        RequestBreakdown page = slowest.get(0);
+        assertThat(page.uri(), is("/fish"));
+        assertThat(page.status(), is(200));
+        assertThat(page.statements(), is(1));
+        assertThat(page.phasesMs().get("database"), greaterThanOrEqualTo(40.0));
+        assertThat(page.phasesMs().get("template"), lessThan(page.phasesMs().get("database")));
+        assertThat(slowest.get(1).phasesMs().get("passwordHash"), greaterThanOrEqualTo(5.0));
+    }
+
+    @Test
+    @DisplayName("nothing to summarize or dump before a recording is started, and only one recording runs at a time")
+    void oneRecordingAtATime() throws Exception {
+        assertThat(service.slowestRequests(10).isPresent(), is(false));
+
+        assertThat(service.start("default", Duration.ofMinutes(5)).isPresent(), is(true));
+        assertThat(service.start("profile", Duration.ofMinutes(5)).isPresent(), is(false));
+        assertThat(service.stop().orElseThrow().state(), is("STOPPED"));
+        assertThat(service.stop().isPresent(), is(false));
+        assertThat(service.slowestRequests(10).isPresent(), is(true));
+    }
+
+    private static void request(String uri, Runnable work) {
+        RequestProfiling.begin();
+        RequestEvent request = new RequestEvent();
+        request.begin();
+        try {
+            work.run();
+        } finally {
+            request.method = "GET";
+            request.uri = uri;
+            request.status = 200;
+            request.finish();
+            RequestProfiling.end();
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package technikal.task.fishmarket.repository;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import technikal.task.fishmarket.model.FishView;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class FishExportRepositoryTest {
+
+    @Test
+    @DisplayName("forEachFish folds joined image rows into one fish and reads through a bounded forward-only cursor")
+    void forEachFishFoldsRows() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, true, false);
+        when(rs.getLong("id")).thenReturn(1L, 1L, 2L);
+        when(rs.getString("name")).thenReturn("Короп", "Щука");
+        when(rs.getDouble("price")).thenReturn(120.0, 200.0);
+        when(rs.getString("file_name")).thenReturn("a.jpg", "b.jpg", null);
+
+        List<FishView> exported = new ArrayList<>();
+        new FishExportRepository(dataSource, 250).forEachFish(exported::add);
+
+        assertThat(exported, hasSize(2));
+        assertThat(exported.get(0).name(), is("Короп"));
+        assertThat(exported.get(0).images(), hasSize(2));
+        assertThat(exported.get(0).images().get(1).fileName(), is("b.jpg"));
+        assertThat(exported.get(1).name(), is("Щука"));
+        assertThat(exported.get(1).images(), hasSize(0));
+        verify(statement).setFetchSize(250);
+        verify(rs).close();
+    }
+
+    @Test
+    @DisplayName("forEachFish streams the export query row by row on MySQL")
+    void forEachFishStreamsOnMySql() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+
+        new FishExportRepository(dataSource, 250).forEachFish(fish -> {
+        });
+
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+    }
+}
@@ -0,0 +1,127 @@
+package technikal.task.fishmarket.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSort;
+import technikal.task.fishmarket.service.FishMetrics;
+import technikal.task.fishmarket.service.FishService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the filtered keyset queries against H2 in MySQL mode, with the schema from the Liquibase changelogs.
+ */
+@Timeout(30)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:filters;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+class FishFilterPagingTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 10, 1);
+
+    @Autowired
+    private FishRepository fishRepository;
+
+    private FishService fishService;
+    private List<Fish> all;
+
+    @BeforeEach
+    void setUp() {
+        fishService = new FishService(fishRepository, null, null, null, new FishMetrics(new SimpleMeterRegistry()), null, null);
+        List<Fish> fishList = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Fish fish = new Fish();
+            fish.setName("Риба " + i);
+            // repeated prices and days, so the id tie-break is exercised
+            fish.setPrice(50 + (i * 7) % 10 * 10);
+            fish.setCatchDate(day(i % 6));
+            fishList.add(fish);
+        }
+        all = fishRepository.saveAll(fishList);
+    }
+
+    @ParameterizedTest
+    @EnumSource(FishSort.class)
+    @DisplayName("paging forward and back through a filtered sort visits every match once, in order")
+    void pagesThroughFilteredSort(FishSort sort) {
+        FishFilter filter = new FishFilter(70.0, 120.0, FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(4), sort);
+        List<Long> expected = expected(filter, fish -> fish.getPrice() >= 70 && fish.getPrice() <= 120
+                && !fish.getCatchDate().before(day(1)) && fish.getCatchDate().before(day(5)));
+
+        List<Long> forward = new ArrayList<>();
+        FishPage page = fishService.getFishPage(filter, null, null, 4);
+        assertThat(page.getPrevCursor(), is((Long) null));
+        ids(page, forward);
+        while (page.getNextCursor() != null) {
+            page = fishService.getFishPage(filter, page.getNextCursor(), null, 4);
+            ids(page, forward);
+        }
+        assertThat(forward, is(expected));
+
+        List<Long> backward = new ArrayList<>(page.getItems().stream().map(Fish::getId).toList());
+        while (page.getPrevCursor() != null) {
+            page = fishService.getFishPage(filter, null, page.getPrevCursor(), 4);
+            backward.addAll(0, page.getItems().stream().map(Fish::getId).toList());
+        }
+        assertThat(backward, is(expected));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = FishSort.class, names = {"PRICE_ASC", "CAUGHT_DESC"})
+    @DisplayName("a sort without filters pages through the whole catalog")
+    void pagesThroughUnfilteredSort(FishSort sort) {
+        FishFilter filter = new FishFilter(null, null, null, null, sort);
+        List<Long> forward = new ArrayList<>();
+        FishPage page = fishService.getFishPage(filter, null, null, 7);
+        ids(page, forward);
+        while (page.getNextCursor() != null) {
+            page = fishService.getFishPage(filter, page.getNextCursor(), null, 7);
+            ids(page, forward);
+        }
+        assertThat(forward, is(expected(filter, fish -> true)));
+    }
+
+    private List<Long> expected(FishFilter filter, Predicate<Fish> matches) {
+        Comparator<Fish> byId = Comparator.comparing(Fish::getId);
+        Comparator<Fish> order = switch (filter.sort()) {
+            case NEWEST -> byId.reversed();
+            case PRICE_ASC -> Comparator.comparingDouble(Fish::getPrice).thenComparing(byId);
+            case PRICE_DESC -> Comparator.comparingDouble(Fish::getPrice).thenComparing(byId).reversed();
+            case CAUGHT_ASC -> Comparator.comparing(Fish::getCatchDate).thenComparing(byId);
+            case CAUGHT_DESC -> Comparator.comparing(Fish::getCatchDate).thenComparing(byId).reversed();
+        };
+        return all.stream().filter(matches).sorted(order).map(Fish::getId).toList();
+    }
+
+    private static void ids(FishPage page, List<Long> target) {
+        page.getItems().forEach(fish -> target.add(fish.getId()));
+    }
+
+    private static Date day(int offset) {
+        return Date.from(FIRST_DAY.plusDays(offset).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,105 @@
+package technikal.task.fishmarket.repository;
+
+import jakarta.persistence.EntityManager;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Soft delete and purge against H2 in MySQL mode, with the schema from the Liquibase changelogs.
+ */
+@Timeout(30)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:softdelete;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+class FishSoftDeleteTest {
+
+    @Autowired
+    private FishRepository fishRepository;
+
+    @Autowired
+    private FishImageRepository fishImageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Fish kept;
+    private Fish deleted;
+
+    @BeforeEach
+    void setUp() {
+        kept = fishRepository.save(fish("Короп", "a.jpg"));
+        deleted = fishRepository.save(fish("Щука", "b.jpg"));
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("markDeleted hides fish from lookups, pages, filters and the name list, but not their image rows")
+    void markDeletedHidesFish() {
+        assertThat(fishRepository.markDeleted(List.of(deleted.getId(), 404L), new Date()), is(1));
+        assertThat(fishRepository.markDeleted(List.of(deleted.getId()), new Date()), is(0));
+        entityManager.clear();
+
+        assertThat(fishRepository.findById(deleted.getId()).isPresent(), is(false));
+        assertThat(ids(fishRepository.findAllByOrderByIdDesc(Limit.of(10))), contains(kept.getId()));
+        assertThat(ids(fishRepository.findAll(FishSpecifications.matching(FishFilter.NONE))), contains(kept.getId()));
+        assertThat(fishRepository.findAllNames().stream().map(FishRepository.FishName::getId).toList(),
+                contains(kept.getId()));
+        assertThat(fishImageRepository.isReferenced("b.jpg"), is(true));
+    }
+
+    @Test
+    @DisplayName("purge removes only soft-deleted rows due before the cutoff, with their images")
+    void purgeRemovesDueRows() {
+        Date cutoff = new Date();
+        fishRepository.markDeleted(List.of(deleted.getId()), new Date(cutoff.getTime() - 60_000));
+        assertThat(fishRepository.findDeletedBefore(new Date(cutoff.getTime() - 120_000), 10), is(empty()));
+
+        List<Long> due = fishRepository.findDeletedBefore(cutoff, 10);
+        assertThat(due, contains(deleted.getId()));
+        assertThat(fishRepository.findImagesByFishIds(due).get(0).getFileName(), is("b.jpg"));
+
+        assertThat(fishRepository.purge(List.of(deleted.getId(), kept.getId())), is(1));
+        entityManager.clear();
+
+        assertThat(fishRepository.findDeletedBefore(cutoff, 10), is(empty()));
+        assertThat(fishImageRepository.isReferenced("b.jpg"), is(false));
+        assertThat(fishRepository.findById(kept.getId()).isPresent(), is(true));
+    }
+
+    private static Fish fish(String name, String fileName) {
+        Fish fish = new Fish();
+        fish.setName(name);
+        fish.setPrice(100);
+        fish.setCatchDate(new Date());
+        FishImage image = new FishImage();
+        image.setFileName(fileName);
+        fish.addImage(image);
+        return fish;
+    }
+
+    private static List<Long> ids(List<Fish> fish) {
+        return fish.stream().map(Fish::getId).toList();
+    }
+}
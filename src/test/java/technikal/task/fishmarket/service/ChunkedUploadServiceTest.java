@@ -0,0 +1,178 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.exception.UploadNotFoundException;
+import technikal.task.fishmarket.model.ChunkedUploadRequest;
+import technikal.task.fishmarket.model.ChunkedUploadStatus;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.storage.FlatImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Timeout(10)
+class ChunkedUploadServiceTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @TempDir
+    Path imagesDir;
+
+    @TempDir
+    Path stagingDir;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    private ChunkedUploadService chunkedUploadService;
+    private final byte[] photo = photo(2 * CHUNK_SIZE + 100);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        FishUploadService fishUploadService = new FishUploadService(
+                new ImageStore(new FlatImageStorage(imagesDir), fishImageRepository, ImageOptimizer.disabled()),
+                new FishMetrics(new SimpleMeterRegistry()), 1);
+        chunkedUploadService = new ChunkedUploadService(fishUploadService, stagingDir.toString(), 1, 1, 24);
+    }
+
+    @Test
+    @DisplayName("chunks may arrive in any order; the offset stops at the first gap and assembly restores the photo")
+    void chunksAssembleIntoThePhoto() throws IOException {
+        String id = start(sha256(photo)).id();
+
+        putChunk(id, 2);
+        ChunkedUploadStatus status = putChunk(id, 0);
+        assertThat(status.offset(), is((long) CHUNK_SIZE));
+        assertThat(status.missingChunks(), contains(1));
+
+        status = putChunk(id, 1);
+        assertThat(status.offset(), is((long) photo.length));
+        assertThat(status.isComplete(), is(true));
+
+        List<FishImage> images = chunkedUploadService.assemble(List.of(id));
+        assertThat(images.get(0).getContentHash(), is(sha256(photo)));
+        assertThat(images.get(0).getFileName(), is(sha256(photo) + ".png"));
+        assertThat(Files.readAllBytes(imagesDir.resolve(images.get(0).getFileName())), is(photo));
+
+        chunkedUploadService.finish(List.of(id));
+        assertThrows(UploadNotFoundException.class, () -> chunkedUploadService.status(id));
+    }
+
+    @Test
+    @DisplayName("a chunk with the wrong checksum or length is rejected and not staged")
+    void putChunkRejectsCorruptChunks() {
+        String id = start(null).id();
+        byte[] chunk = chunk(0);
+
+        InvalidFishDataException badChecksum = assertThrows(InvalidFishDataException.class, () -> chunkedUploadService
+                .putChunk(id, 0, sha256(new byte[1]), new ByteArrayInputStream(chunk)));
+        InvalidFishDataException truncated = assertThrows(InvalidFishDataException.class, () -> chunkedUploadService
+                .putChunk(id, 0, sha256(chunk), new ByteArrayInputStream(chunk, 0, 10)));
+
+        assertThat(badChecksum.getMessage(), containsString("Контрольна сума"));
+        assertThat(truncated.getMessage(), containsString("10 байт"));
+        assertThat(chunkedUploadService.status(id).missingChunks(), contains(0, 1, 2));
+    }
+
+    @Test
+    @DisplayName("assemble refuses incomplete uploads and removes a photo that does not match the announced hash")
+    void assembleChecksCompletenessAndHash() throws IOException {
+        String incomplete = start(null).id();
+        putChunk(incomplete, 0);
+        String mismatched = start(sha256(new byte[1])).id();
+        for (int i = 0; i < 3; i++) {
+            putChunk(mismatched, i);
+        }
+
+        InvalidFishDataException notDone = assertThrows(InvalidFishDataException.class,
+                () -> chunkedUploadService.assemble(List.of(incomplete)));
+        assertThrows(InvalidFishDataException.class, () -> chunkedUploadService.assemble(List.of(mismatched)));
+
+        assertThat(notDone.getMessage(), containsString("[1, 2]"));
+        assertThat(imageFiles(), is(empty()));
+        assertThat(chunkedUploadService.status(mismatched).isComplete(), is(true));
+    }
+
+    @Test
+    @DisplayName("ids that were never issued are not found, whatever they look like")
+    void unknownIdsAreNotFound() {
+        assertThrows(UploadNotFoundException.class, () -> chunkedUploadService.status("../images"));
+        assertThrows(UploadNotFoundException.class, () -> chunkedUploadService.status("3f1c2a8e-0000-4000-8000-000000000000"));
+    }
+
+    @Test
+    @DisplayName("uploads idle for longer than the TTL are removed")
+    void removeExpiredDropsIdleUploads() throws IOException {
+        String idle = start(null).id();
+        String active = start(null).id();
+        Files.setLastModifiedTime(stagingDir.resolve(idle), FileTime.from(Instant.now().minus(Duration.ofHours(25))));
+
+        chunkedUploadService.removeExpired();
+
+        assertThrows(UploadNotFoundException.class, () -> chunkedUploadService.status(idle));
+        assertThat(chunkedUploadService.status(active).offset(), is(0L));
+    }
+
+    private ChunkedUploadStatus start(String sha256) {
+        return chunkedUploadService.start(new ChunkedUploadRequest("photo.png", photo.length, sha256));
+    }
+
+    private ChunkedUploadStatus putChunk(String id, int index) {
+        byte[] chunk = chunk(index);
+        return chunkedUploadService.putChunk(id, index, sha256(chunk), new ByteArrayInputStream(chunk));
+    }
+
+    private byte[] chunk(int index) {
+        return Arrays.copyOfRange(photo, index * CHUNK_SIZE, Math.min(photo.length, (index + 1) * CHUNK_SIZE));
+    }
+
+    private List<Path> imageFiles() throws IOException {
+        try (Stream<Path> files = Files.list(imagesDir)) {
+            return files.filter(path -> !path.getFileName().toString().startsWith(".")).toList();
+        }
+    }
+
+    private static byte[] photo(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        System.arraycopy(PNG_SIGNATURE, 0, bytes, 0, PNG_SIGNATURE.length);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
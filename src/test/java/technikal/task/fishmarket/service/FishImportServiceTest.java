@@ -0,0 +1,225 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishImportReport;
+import technikal.task.fishmarket.model.FishImportReport.RowError;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class FishImportServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private FishRepository fishRepository;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor importExecutor;
+
+    private FishImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        importExecutor = new ThreadPoolTaskExecutor();
+        importExecutor.setCorePoolSize(2);
+        importExecutor.initialize();
+        ImageStore imageStore = new ImageStore(new ShardedImageStorage(root), fishImageRepository, ImageOptimizer.disabled());
+        importService = new FishImportService(fishRepository, imageStore, uploadService(imageStore), eventPublisher,
+                entityManager, transactionManager, importExecutor, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("importFish saves valid rows in batches, reports invalid ones and removes images no saved row uses")
+    void importFishReportsInvalidRows() throws IOException {
+        String manifest = """
+                name,price,images
+                Короп,120,a.jpg|b.jpg
+                ,50,a.jpg
+                Щука,дорого,a.jpg
+                Окунь,"80,5",missing.jpg
+                Лящ,90,b.jpg
+                Сом,300,c.jpg
+                """;
+
+        FishImportReport report = importService.importFish(csv(manifest),
+                zip(Map.of("a.jpg", gif("aaa"), "b.jpg", gif("bbb"), "c.jpg", gif("ccc"))));
+
+        assertThat(report.rows(), is(6));
+        assertThat(report.imported(), is(3));
+        assertThat(report.errors().stream().map(RowError::line).toList(), contains(3, 4, 5));
+        assertThat(report.errors().get(2).message(), startsWith("Зображення missing.jpg"));
+
+        ArgumentCaptor<List<Fish>> saved = ArgumentCaptor.forClass(List.class);
+        verify(fishRepository, times(2)).saveAll(saved.capture());
+        assertThat(saved.getAllValues().get(0), hasSize(2));
+        assertThat(saved.getAllValues().get(0).get(0).getImages(), hasSize(2));
+        assertThat(saved.getAllValues().get(1).get(0).getName(), is("Сом"));
+        verify(entityManager, times(2)).clear();
+        verify(eventPublisher, times(3)).publishEvent(any(FishCreatedEvent.class));
+        assertThat(storedFileCount(), is(3L));
+    }
+
+    @Test
+    @DisplayName("importFish retries a failed batch row by row so only the broken row is lost")
+    void importFishRetriesFailedBatchRowByRow() throws IOException {
+        when(fishRepository.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("batch failed"))
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("Data too long for column 'name'"));
+
+        FishImportReport report = importService.importFish(csv("name,price,images\nКороп,120,a.jpg\nЩука,200,b.jpg\n"),
+                zip(Map.of("a.jpg", gif("aaa"), "b.jpg", gif("bbb"))));
+
+        assertThat(report.imported(), is(1));
+        assertThat(report.errors(), hasSize(1));
+        assertThat(report.errors().get(0).line(), is(3));
+        verify(fishRepository, atLeast(3)).saveAll(anyList());
+        assertThat(storedFileCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("importFish saves the kept upload of a re-encoded image with the row")
+    void importFishKeepsOriginalsOfReencodedImages() throws IOException {
+        ImageStore imageStore = new ImageStore(new ShardedImageStorage(root), fishImageRepository,
+                new ImageOptimizer(new FishMetrics(new SimpleMeterRegistry()), true, 100, 0.8f, true));
+        FishImportService keeping = new FishImportService(fishRepository, imageStore, uploadService(imageStore),
+                eventPublisher, entityManager, transactionManager, importExecutor, 2);
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "jpg", photo);
+
+        FishImportReport report = keeping.importFish(csv("name,price,images\nКороп,120,a.jpg\n"),
+                zip("a.jpg", photo.toByteArray()));
+
+        assertThat(report.imported(), is(1));
+        ArgumentCaptor<List<Fish>> saved = ArgumentCaptor.forClass(List.class);
+        verify(fishRepository).saveAll(saved.capture());
+        FishImage image = saved.getValue().get(0).getImages().get(0);
+        assertThat(image.getOriginalFileName(), is(notNullValue()));
+        assertThat(image.getOriginalFileName(), is(not(image.getFileName())));
+        assertThat(storedFileCount(), is(2L));
+    }
+
+    @Test
+    @DisplayName("importFish rejects archive entries that are not images whatever their name, and stores images under their detected type")
+    void importFishRejectsEntriesThatAreNotImages() throws IOException {
+        FishImportReport report = importService.importFish(csv("name,price,images\nКороп,120,a.jpg\nЩука,200,page.jpg\n"),
+                zip(Map.of("a.jpg", gif("aaa"),
+                        "page.jpg", "<svg onload=\"alert(1)\"/>".getBytes(StandardCharsets.UTF_8)))));
+
+        assertThat(report.imported(), is(1));
+        assertThat(report.errors(), hasSize(1));
+        assertThat(report.errors().get(0).line(), is(3));
+        assertThat(report.errors().get(0).message(), startsWith("Не вдалося зберегти зображення page.jpg"));
+        ArgumentCaptor<List<Fish>> saved = ArgumentCaptor.forClass(List.class);
+        verify(fishRepository).saveAll(saved.capture());
+        assertThat(saved.getValue().get(0).getImages().get(0).getFileName(), endsWith(".gif"));
+        assertThat(storedFileCount(), is(1L));
+    }
+
+    private static FishUploadService uploadService(ImageStore imageStore) {
+        return new FishUploadService(imageStore, new FishMetrics(new SimpleMeterRegistry()), 20);
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("manifest", "fish.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A GIF signature followed by {@code body}: enough for type detection, and distinct bodies give distinct files.
+     */
+    private static byte[] gif(String body) {
+        return ("GIF89a" + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MockMultipartFile zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("images", "images.zip", "application/zip", bytes.toByteArray());
+    }
+
+    private static MockMultipartFile zip(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content);
+            zip.closeEntry();
+        }
+        return new MockMultipartFile("images", "images.zip", "application/zip", bytes.toByteArray());
+    }
+
+    private long storedFileCount() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package technikal.task.fishmarket.service;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishDeletedEvent;
+import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.repository.FishRepository.FishName;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class FishNameIndexTest {
+
+    @Mock
+    private FishRepository fishRepository;
+
+    private FishNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(fishRepository.findAllNames()).thenReturn(List.of(
+                name(1L, "Короп дзеркальний"), name(2L, "Щука"), name(3L, "Короп"), name(4L, "Карась")));
+        index = new FishNameIndex(fishRepository);
+        index.load();
+    }
+
+    @Test
+    @DisplayName("search ranks names containing the query first, shorter names before longer ones")
+    void searchRanksSubstringMatches() {
+        FishNameIndex.Result result = index.search("короп", 0, 10);
+
+        assertThat(result.ids(), contains(3L, 1L));
+        assertThat(result.total(), is(2));
+    }
+
+    @Test
+    @DisplayName("search ignores case and punctuation, matches word prefixes and tolerates a typo")
+    void searchIsForgiving() {
+        assertThat(index.search("ДЗЕРКАЛЬНИЙ!", 0, 10).ids(), contains(1L));
+        assertThat(index.search("щу", 0, 10).ids(), contains(2L));
+        assertThat(index.search("карасьь", 0, 10).ids(), contains(4L));
+        assertThat(index.search("к", 0, 10).ids(), is(empty()));
+        assertThat(index.search("окунь", 0, 10).ids(), is(empty()));
+    }
+
+    @Test
+    @DisplayName("search pages through the ranked matches")
+    void searchPagesResults() {
+        FishNameIndex.Result second = index.search("короп", 1, 1);
+
+        assertThat(second.ids(), contains(1L));
+        assertThat(second.total(), is(2));
+        assertThat(index.search("короп", 2, 1).ids(), is(empty()));
+    }
+
+    @Test
+    @DisplayName("committed creates and deletes update the index without a reload")
+    void eventsUpdateIndex() {
+        index.onFishCreated(new FishCreatedEvent(5L, "Короп лускатий", List.of()));
+        index.onFishDeleted(new FishDeletedEvent(3L));
+
+        assertThat(index.search("короп", 0, 10).ids(), contains(5L, 1L));
+        assertThat(index.size(), is(4));
+    }
+
+    @Test
+    @DisplayName("removing most entries rebuilds the posting lists and keeps the rest searchable")
+    void removeCompactsIndex() {
+        for (long id = 100; id < 3100; id++) {
+            index.add(id, "Окунь " + id);
+        }
+        for (long id = 100; id < 3100; id++) {
+            index.remove(id);
+        }
+
+        assertThat(index.size(), is(4));
+        assertThat(index.search("окунь", 0, 10).total(), is(0));
+        assertThat(index.search("короп", 0, 10).ids(), contains(3L, 1L));
+    }
+
+    private static FishName name(Long id, String name) {
+        return new FishName() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -1,38 +1,48 @@
 package technikal.task.fishmarket.service;
 
-import java.io.ByteArrayInputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.Sort;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.Limit;
 import technikal.task.fishmarket.exception.FishNotFoundException;
-import technikal.task.fishmarket.exception.ImageStorageException;
 import technikal.task.fishmarket.exception.InvalidFishDataException;
 import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishCreatedEvent;
+import technikal.task.fishmarket.model.FishDeletedEvent;
 import technikal.task.fishmarket.model.FishDto;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.model.FishSearchPage;
+import technikal.task.fishmarket.repository.FishImageRepository;
 import technikal.task.fishmarket.repository.FishRepository;
+import technikal.task.fishmarket.storage.FlatImageStorage;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,251 +52,253 @@ public class FishServiceBaseRockGeneratedTest {
     @Mock
     private FishRepository fishRepository;
 
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private FishNameIndex fishNameIndex;
+
     private FishService fishService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        fishService = new FishService(fishRepository);
+        fishService = new FishService(fishRepository, new ImageStore(new FlatImageStorage(Path.of("public/images")), fishImageRepository, ImageOptimizer.disabled()), eventPublisher, fishNameIndex, new FishMetrics(new SimpleMeterRegistry()), new SyncTaskExecutor());
     }
 
     @Test
-    @DisplayName("getAllFish returns a list of fish sorted by id descending")
-    void getAllFishReturnsListOfFishSortedByIdDescending() {
-        List<Fish> expectedFish = new ArrayList<>();
-        Fish fish1 = new Fish();
-        Fish fish2 = new Fish();
-        expectedFish.add(fish1);
-        expectedFish.add(fish2);
-
-        when(fishRepository.findAll(any(Sort.class))).thenReturn(expectedFish);
+    @DisplayName("getFishPage returns the newest page and a cursor to older fish")
+    void getFishPageReturnsFirstPageWithNextCursor() {
+        when(fishRepository.findAllByOrderByIdDesc(Limit.of(3))).thenReturn(fishWithIds(10L, 9L, 8L));
 
-        List<Fish> result = fishService.getAllFish();
+        FishPage page = fishService.getFishPage(FishFilter.NONE, null, null, 2);
 
-        assertThat(result, hasSize(2));
-        verify(fishRepository, atLeast(1)).findAll(Sort.by(Sort.Direction.DESC, "id"));
+        assertThat(page.getItems(), hasSize(2));
+        assertThat(page.getItems().get(0).getId(), is(10L));
+        assertThat(page.getNextCursor(), is(9L));
+        assertThat(page.getPrevCursor(), is(nullValue()));
     }
 
     @Test
-    @DisplayName("addFish successfully adds a fish with one image")
-    void addFishSuccessfullyWithOneImage() throws IOException {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Salmon");
-        fishDto.setPrice(25.99);
-        MultipartFile mockImage = mock(MultipartFile.class);
-        when(mockImage.isEmpty()).thenReturn(false);
-        when(mockImage.getOriginalFilename()).thenReturn("fish.jpg");
-        when(mockImage.getInputStream()).thenReturn(new ByteArrayInputStream("image data".getBytes()));
+    @DisplayName("getFishPage moves to older fish using the before cursor")
+    void getFishPageWithBeforeCursor() {
+        when(fishRepository.findByIdLessThanOrderByIdDesc(9L, Limit.of(3))).thenReturn(fishWithIds(8L, 7L));
+        when(fishRepository.existsByIdGreaterThan(8L)).thenReturn(true);
 
-        List<MultipartFile> images = new ArrayList<>();
-        images.add(mockImage);
-        fishDto.setImageFiles(images);
+        FishPage page = fishService.getFishPage(FishFilter.NONE, 9L, null, 2);
 
-        try (var mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
-            mockedFiles.when(() -> Files.createDirectories(any(Path.class))).thenReturn(null);
-            mockedFiles.when(() -> Files.copy(any(InputStream.class), any(Path.class), eq(StandardCopyOption.REPLACE_EXISTING))).thenReturn(0L);
-
-            fishService.addFish(fishDto);
-        }
-
-        verify(fishRepository, atLeast(1)).save(any(Fish.class));
+        assertThat(page.getItems(), hasSize(2));
+        assertThat(page.getPrevCursor(), is(8L));
+        assertThat(page.getNextCursor(), is(nullValue()));
     }
 
     @Test
-    @DisplayName("addFish successfully adds a fish with three images")
-    void addFishSuccessfullyWithThreeImages() throws IOException {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Tuna");
-        fishDto.setPrice(45.99);
-
-        List<MultipartFile> images = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
-            MultipartFile mockImage = mock(MultipartFile.class);
-            when(mockImage.isEmpty()).thenReturn(false);
-            when(mockImage.getOriginalFilename()).thenReturn("fish" + i + ".jpg");
-            when(mockImage.getInputStream()).thenReturn(new ByteArrayInputStream("image data".getBytes()));
-            images.add(mockImage);
-        }
-        fishDto.setImageFiles(images);
+    @DisplayName("getFishPage moves back to newer fish using the after cursor")
+    void getFishPageWithAfterCursor() {
+        when(fishRepository.findByIdGreaterThanOrderByIdAsc(8L, Limit.of(3))).thenReturn(fishWithIds(9L, 10L, 11L));
+        when(fishRepository.existsByIdLessThan(9L)).thenReturn(true);
 
-        try (var mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
-            mockedFiles.when(() -> Files.createDirectories(any(Path.class))).thenReturn(null);
-            mockedFiles.when(() -> Files.copy(any(InputStream.class), any(Path.class), eq(StandardCopyOption.REPLACE_EXISTING))).thenReturn(0L);
+        FishPage page = fishService.getFishPage(FishFilter.NONE, null, 8L, 2);
 
-            fishService.addFish(fishDto);
-        }
-
-        verify(fishRepository, atLeast(1)).save(any(Fish.class));
+        assertThat(page.getItems().get(0).getId(), is(10L));
+        assertThat(page.getItems().get(1).getId(), is(9L));
+        assertThat(page.getPrevCursor(), is(10L));
+        assertThat(page.getNextCursor(), is(9L));
     }
 
     @Test
-    @DisplayName("addFish throws InvalidFishDataException when images list is null")
-    void addFishThrowsExceptionWhenImagesAreNull() {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Bass");
-        fishDto.setPrice(15.99);
-        fishDto.setImageFiles(null);
+    @DisplayName("getFishPage clamps the page size to the allowed range")
+    void getFishPageClampsPageSize() {
+        when(fishRepository.findAllByOrderByIdDesc(any(Limit.class))).thenReturn(new ArrayList<>());
 
-        InvalidFishDataException exception = assertThrows(InvalidFishDataException.class, () -> fishService.addFish(fishDto));
-        assertThat(exception.getMessage(), is("Кількість зображень має бути від 1 до 3"));
+        assertThat(fishService.getFishPage(FishFilter.NONE, null, null, 10_000).getSize(), is(FishService.MAX_PAGE_SIZE));
+        assertThat(fishService.getFishPage(FishFilter.NONE, null, null, 0).getSize(), is(FishService.DEFAULT_PAGE_SIZE));
+        verify(fishRepository, atLeast(1)).findAllByOrderByIdDesc(Limit.of(FishService.MAX_PAGE_SIZE + 1));
     }
 
     @Test
-    @DisplayName("addFish throws InvalidFishDataException when images list is empty")
-    void addFishThrowsExceptionWhenImagesAreEmpty() {
+    @DisplayName("addFish saves the fish with the images already stored for it")
+    void addFishSavesStoredImages() {
         FishDto fishDto = new FishDto();
-        fishDto.setName("Cod");
-        fishDto.setPrice(20.99);
-        fishDto.setImageFiles(new ArrayList<>());
+        fishDto.setName("Salmon");
+        fishDto.setPrice(25.99);
+        List<FishImage> images = List.of(imageNamed("a.jpg"), imageNamed("b.jpg"));
 
-        InvalidFishDataException exception = assertThrows(InvalidFishDataException.class, () -> fishService.addFish(fishDto));
-        assertThat(exception.getMessage(), is("Кількість зображень має бути від 1 до 3"));
+        fishService.addFish(fishDto, images);
+
+        ArgumentCaptor<Fish> saved = ArgumentCaptor.forClass(Fish.class);
+        verify(fishRepository).save(saved.capture());
+        assertThat(saved.getValue().getName(), is("Salmon"));
+        assertThat(saved.getValue().getImageFileNamesList(), is(List.of("a.jpg", "b.jpg")));
+        verify(eventPublisher).publishEvent(any(FishCreatedEvent.class));
     }
 
     @Test
-    @DisplayName("addFish throws InvalidFishDataException when images list has more than 3 images")
-    void addFishThrowsExceptionWhenTooManyImages() {
+    @DisplayName("addFish throws InvalidFishDataException without images or with more than three")
+    void addFishRejectsImageCount() {
         FishDto fishDto = new FishDto();
         fishDto.setName("Trout");
         fishDto.setPrice(18.99);
+        List<FishImage> four = List.of(imageNamed("a.jpg"), imageNamed("b.jpg"), imageNamed("c.jpg"), imageNamed("d.jpg"));
 
-        List<MultipartFile> images = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            images.add(mock(MultipartFile.class));
-        }
-        fishDto.setImageFiles(images);
+        InvalidFishDataException none = assertThrows(InvalidFishDataException.class,
+                () -> fishService.addFish(fishDto, List.of()));
+        InvalidFishDataException tooMany = assertThrows(InvalidFishDataException.class,
+                () -> fishService.addFish(fishDto, four));
 
-        InvalidFishDataException exception = assertThrows(InvalidFishDataException.class, () -> fishService.addFish(fishDto));
-        assertThat(exception.getMessage(), is("Кількість зображень має бути від 1 до 3"));
+        assertThat(none.getMessage(), is("Кількість зображень має бути від 1 до 3"));
+        assertThat(tooMany.getMessage(), is("Кількість зображень має бути від 1 до 3"));
+        verify(fishRepository, never()).save(any());
     }
 
     @Test
-    @DisplayName("addFish throws InvalidFishDataException when image is empty")
-    void addFishThrowsExceptionWhenImageIsEmpty() {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Pike");
-        fishDto.setPrice(22.99);
-
-        MultipartFile mockImage = mock(MultipartFile.class);
-        when(mockImage.isEmpty()).thenReturn(true);
+    @DisplayName("getFish returns the fish with its images")
+    void getFishReturnsFish() {
+        Fish fish = new Fish();
+        fish.setId(4L);
+        fish.addImage(imageNamed("image1.jpg"));
+        when(fishRepository.findById(4L)).thenReturn(Optional.of(fish));
 
-        List<MultipartFile> images = new ArrayList<>();
-        images.add(mockImage);
-        fishDto.setImageFiles(images);
+        Fish result = fishService.getFish(4L);
 
-        InvalidFishDataException exception = assertThrows(InvalidFishDataException.class, () -> fishService.addFish(fishDto));
-        assertThat(exception.getMessage(), is("Порожнє зображення не дозволено"));
+        assertThat(result.getImageFileNamesList(), is(List.of("image1.jpg")));
     }
 
     @Test
-    @DisplayName("addFish throws InvalidFishDataException when image is null")
-    void addFishThrowsExceptionWhenImageIsNull() {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Mackerel");
-        fishDto.setPrice(12.99);
-
-        List<MultipartFile> images = new ArrayList<>();
-        images.add(null);
-        fishDto.setImageFiles(images);
+    @DisplayName("getFish throws FishNotFoundException when fish does not exist")
+    void getFishThrowsWhenFishNotFound() {
+        when(fishRepository.findById(404L)).thenReturn(Optional.empty());
 
-        InvalidFishDataException exception = assertThrows(InvalidFishDataException.class, () -> fishService.addFish(fishDto));
-        assertThat(exception.getMessage(), is("Порожнє зображення не дозволено"));
+        assertThrows(FishNotFoundException.class, () -> fishService.getFish(404L));
     }
 
     @Test
-    @DisplayName("addFish throws ImageStorageException when saving image fails")
-    void addFishThrowsImageStorageExceptionWhenSaveImageFails() throws IOException {
-        FishDto fishDto = new FishDto();
-        fishDto.setName("Herring");
-        fishDto.setPrice(8.99);
+    @DisplayName("deleteFish marks the fish deleted in one update, without loading it or touching its files")
+    void deleteFishMarksFishDeleted() {
+        Long fishId = 1L;
+        when(fishRepository.markDeleted(eq(List.of(fishId)), any(Date.class))).thenReturn(1);
 
-        MultipartFile mockImage = mock(MultipartFile.class);
-        when(mockImage.isEmpty()).thenReturn(false);
-        when(mockImage.getOriginalFilename()).thenReturn("fish.jpg");
-        when(mockImage.getInputStream()).thenReturn(new ByteArrayInputStream("image data".getBytes()));
+        fishService.deleteFish(fishId);
 
-        List<MultipartFile> images = new ArrayList<>();
-        images.add(mockImage);
-        fishDto.setImageFiles(images);
+        verify(fishRepository, never()).findById(any());
+        verify(fishRepository, never()).delete(any(Fish.class));
+        verify(eventPublisher).publishEvent(new FishDeletedEvent(fishId));
+        verify(fishImageRepository, never()).isReferenced(any());
+    }
 
-        try (var mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(false);
-            mockedFiles.when(() -> Files.createDirectories(any(Path.class))).thenAnswer(invocation -> {
-                throw new IOException("Cannot create directory");
-            });
+    @Test
+    @DisplayName("deleteFish throws FishNotFoundException when fish does not exist")
+    void deleteFishThrowsExceptionWhenFishNotFound() {
+        Long fishId = 999L;
+        when(fishRepository.markDeleted(eq(List.of(fishId)), any(Date.class))).thenReturn(0);
 
-            ImageStorageException exception = assertThrows(ImageStorageException.class, () -> fishService.addFish(fishDto));
-            assertThat(exception.getMessage(), is("Помилка при збереженні зображення"));
-        }
+        FishNotFoundException exception = assertThrows(FishNotFoundException.class, () -> fishService.deleteFish(fishId));
+        assertThat(exception.getMessage(), is("Рибка з id " + fishId + " не знайдена"));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
-    @DisplayName("deleteFish successfully deletes a fish with existing images")
-    void deleteFishSuccessfullyWithExistingImages() {
-        Long fishId = 1L;
-        Fish fish = new Fish();
-        fish.setImageFileNames("image1.jpg,image2.jpg");
+    @DisplayName("deleteFish with many ids skips duplicates and nulls and updates at most DELETE_BATCH_SIZE per statement")
+    void deleteFishInBatches() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= FishService.DELETE_BATCH_SIZE + 10; id++) {
+            ids.add(id);
+        }
+        ids.add(1L);
+        ids.add(null);
+        when(fishRepository.markDeleted(any(), any(Date.class))).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+        int deleted = fishService.deleteFish(ids);
+
+        assertThat(deleted, is(FishService.DELETE_BATCH_SIZE + 10));
+        ArgumentCaptor<List<Long>> batches = ArgumentCaptor.captor();
+        verify(fishRepository, times(2)).markDeleted(batches.capture(), any(Date.class));
+        assertThat(batches.getAllValues().get(0), hasSize(FishService.DELETE_BATCH_SIZE));
+        assertThat(batches.getAllValues().get(1), hasSize(10));
+        verify(eventPublisher, times(FishService.DELETE_BATCH_SIZE + 10)).publishEvent(any(FishDeletedEvent.class));
+    }
 
-        when(fishRepository.findById(fishId)).thenReturn(Optional.of(fish));
+    @Test
+    @DisplayName("purgeDeleted removes the due rows and then the image files nothing else references")
+    void purgeDeletedRemovesRowsAndFiles() {
+        Date cutoff = new Date();
+        when(fishRepository.findDeletedBefore(cutoff, 100)).thenReturn(List.of(1L, 2L));
+        when(fishRepository.findImagesByFishIds(List.of(1L, 2L))).thenReturn(List.of(imageNamed("image1.jpg"), imageNamed("image2.jpg")));
+        when(fishRepository.purge(List.of(1L, 2L))).thenReturn(2);
 
         try (var mockedFiles = mockStatic(Files.class)) {
             mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
             mockedFiles.when(() -> Files.delete(any(Path.class))).thenAnswer(invocation -> null);
 
-            fishService.deleteFish(fishId);
-        }
+            assertThat(fishService.purgeDeleted(cutoff, 100), is(2));
 
-        verify(fishRepository, atLeast(1)).delete(fish);
+            mockedFiles.verify(() -> Files.delete(any(Path.class)), times(2));
+        }
     }
 
     @Test
-    @DisplayName("deleteFish successfully deletes a fish with null imageFileNames")
-    void deleteFishSuccessfullyWithNullImageFileNames() {
-        Long fishId = 2L;
-        Fish fish = new Fish();
-        fish.setImageFileNames(null);
+    @DisplayName("purgeDeleted does nothing when no deleted fish is due")
+    void purgeDeletedWithNothingDue() {
+        Date cutoff = new Date();
+        when(fishRepository.findDeletedBefore(cutoff, 100)).thenReturn(List.of());
 
-        when(fishRepository.findById(fishId)).thenReturn(Optional.of(fish));
+        assertThat(fishService.purgeDeleted(cutoff, 100), is(0));
+
+        verify(fishRepository, never()).purge(any());
+    }
+
+    @Test
+    @DisplayName("purgeDeleted still purges the rows when removing an image file fails; the reconciler retries it")
+    void purgeDeletedKeepsRowPurgeWhenDeleteImagesFails() {
+        Date cutoff = new Date();
+        when(fishRepository.findDeletedBefore(cutoff, 100)).thenReturn(List.of(3L));
+        when(fishRepository.findImagesByFishIds(List.of(3L))).thenReturn(List.of(imageNamed("image1.jpg")));
+        when(fishRepository.purge(List.of(3L))).thenReturn(1);
 
         try (var mockedFiles = mockStatic(Files.class)) {
             mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
-            mockedFiles.when(() -> Files.delete(any(Path.class))).thenAnswer(invocation -> null);
+            mockedFiles.when(() -> Files.delete(any(Path.class))).thenAnswer(invocation -> {
+                throw new IOException("Cannot delete file");
+            });
 
-            fishService.deleteFish(fishId);
+            assertThat(fishService.purgeDeleted(cutoff, 100), is(1));
+
+            mockedFiles.verify(() -> Files.delete(any(Path.class)));
         }
 
-        verify(fishRepository, atLeast(1)).delete(fish);
+        verify(fishRepository).purge(List.of(3L));
     }
 
-    @Test
-    @DisplayName("deleteFish throws FishNotFoundException when fish does not exist")
-    void deleteFishThrowsExceptionWhenFishNotFound() {
-        Long fishId = 999L;
-        when(fishRepository.findById(fishId)).thenReturn(Optional.empty());
-
-        FishNotFoundException exception = assertThrows(FishNotFoundException.class, () -> fishService.deleteFish(fishId));
-        assertThat(exception.getMessage(), is("Рибка з id " + fishId + " не знайдена"));
+    private static FishImage imageNamed(String fileName) {
+        FishImage image = new FishImage();
+        image.setFileName(fileName);
+        return image;
     }
 
     @Test
-    @DisplayName("deleteFish throws ImageStorageException when deleting image fails")
-    void deleteFishThrowsImageStorageExceptionWhenDeleteImagesFails() {
-        Long fishId = 3L;
-        Fish fish = new Fish();
-        fish.setImageFileNames("image1.jpg");
+    @DisplayName("searchFish loads the page the index ranked and keeps its order")
+    void searchFishKeepsIndexOrder() {
+        when(fishNameIndex.search("короп", 1, 2)).thenReturn(new FishNameIndex.Result(List.of(7L, 3L), 5));
+        when(fishRepository.findAllById(List.of(7L, 3L))).thenReturn(fishWithIds(3L, 7L));
 
-        when(fishRepository.findById(fishId)).thenReturn(Optional.of(fish));
+        FishSearchPage page = fishService.searchFish("короп", 1, 2);
 
-        try (var mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
-            mockedFiles.when(() -> Files.delete(any(Path.class))).thenAnswer(invocation -> {
-                throw new IOException("Cannot delete file");
-            });
+        assertThat(page.getItems().stream().map(Fish::getId).toList(), is(List.of(7L, 3L)));
+        assertThat(page.getTotal(), is(5));
+        assertThat(page.hasNext(), is(true));
+        assertThat(page.hasPrevious(), is(true));
+    }
 
-            ImageStorageException exception = assertThrows(ImageStorageException.class, () -> fishService.deleteFish(fishId));
-            assertThat(exception.getMessage(), is("Не вдалося видалити зображення image1.jpg"));
+    private static List<Fish> fishWithIds(Long... ids) {
+        List<Fish> result = new ArrayList<>();
+        for (Long id : ids) {
+            Fish fish = new Fish();
+            fish.setId(id);
+            result.add(fish);
         }
+        return result;
     }
 }
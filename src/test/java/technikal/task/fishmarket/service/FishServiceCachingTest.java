@@ -0,0 +1,264 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import technikal.task.fishmarket.config.CacheConfig;
+import technikal.task.fishmarket.controller.CacheStatsController;
+import technikal.task.fishmarket.controller.CacheStatsController.CacheStatistics;
+import technikal.task.fishmarket.model.Fish;
+import technikal.task.fishmarket.model.FishFilter;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.model.FishPage;
+import technikal.task.fishmarket.repository.FishRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+@SpringJUnitConfig(FishServiceCachingTest.TestConfig.class)
+class FishServiceCachingTest {
+
+    @MockBean
+    private FishRepository fishRepository;
+
+    @MockBean
+    private ImageStore imageStore;
+
+    @MockBean
+    private FishNameIndex fishNameIndex;
+
+    @Autowired
+    private FishService fishService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Fish fish = new Fish();
+        fish.setId(7L);
+        when(fishRepository.findAllByOrderByIdDesc(any(Limit.class))).thenReturn(List.of(fish));
+        when(fishRepository.findById(7L)).thenReturn(Optional.of(fish));
+        when(fishRepository.markDeleted(any(), any(Date.class))).thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("repeated page and fish lookups are served from the cache")
+    void lookupsAreCached() {
+        assertThat(fishService.getFishPage(FishFilter.NONE, null, null, 20), sameInstance(fishService.getFishPage(FishFilter.NONE, null, null, 20)));
+        assertThat(fishService.getFish(7L), sameInstance(fishService.getFish(7L)));
+
+        verify(fishRepository, times(1)).findAllByOrderByIdDesc(any(Limit.class));
+        verify(fishRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    @DisplayName("deleteFish invalidates the caches only when its transaction commits")
+    void deleteEvictsOnCommit() {
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+        fishService.getFish(7L);
+        clearInvocations(fishRepository);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fishService.deleteFish(7L);
+            fishService.getFishPage(FishFilter.NONE, null, null, 20);
+            verify(fishRepository, times(0)).findAllByOrderByIdDesc(any(Limit.class));
+        });
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+        fishService.getFish(7L);
+
+        verify(fishRepository, times(1)).findAllByOrderByIdDesc(any(Limit.class));
+        verify(fishRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    @DisplayName("a page read while a delete commits is returned but not cached past the delete's eviction")
+    void readAcrossDeleteIsNotCached() throws Exception {
+        Fish stale = new Fish();
+        stale.setId(7L);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        when(fishRepository.findAllByOrderByIdDesc(any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    reading.countDown();
+                    committed.await();
+                    return List.of(stale);
+                })
+                .thenReturn(List.of());
+
+        CompletableFuture<FishPage> read = CompletableFuture.supplyAsync(
+                () -> fishService.getFishPage(FishFilter.NONE, null, null, 20));
+        reading.await();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> fishService.deleteFish(7L));
+        committed.countDown();
+
+        assertThat(read.get().getItems(), hasSize(1));
+        assertThat(fishService.getFishPage(FishFilter.NONE, null, null, 20).getItems(), is(empty()));
+        verify(fishRepository, times(2)).findAllByOrderByIdDesc(any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("a rolled back delete leaves the caches intact")
+    void rollbackKeepsCache() {
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+        clearInvocations(fishRepository);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fishService.deleteFish(7L);
+            status.setRollbackOnly();
+        });
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+
+        verify(fishRepository, times(0)).findAllByOrderByIdDesc(any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("a batch delete drops every cached fish once its transaction commits")
+    void batchDeleteEvictsAllFish() {
+        fishService.getFish(7L);
+        clearInvocations(fishRepository);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> fishService.deleteFish(List.of(7L, 8L)));
+        fishService.getFish(7L);
+
+        verify(fishRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    @DisplayName("purgeDeleted removes image files only after its transaction commits")
+    void purgeRemovesFilesAfterCommit() {
+        FishImage image = new FishImage();
+        image.setFileName("a.jpg");
+        when(fishRepository.findDeletedBefore(any(Date.class), any(Integer.class))).thenReturn(List.of(7L));
+        when(fishRepository.findImagesByFishIds(List.of(7L))).thenReturn(List.of(image));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fishService.purgeDeleted(new Date(), 100);
+            status.setRollbackOnly();
+        });
+        verify(imageStore, never()).deleteIfUnreferenced(any(), any(String[].class));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fishService.purgeDeleted(new Date(), 100);
+            verify(imageStore, never()).deleteIfUnreferenced(any(), any(String[].class));
+        });
+        verify(imageStore).deleteIfUnreferenced("a.jpg", null, null, null);
+    }
+
+    @Test
+    @DisplayName("cache statistics report hits and misses")
+    void statisticsAreRecorded() {
+        fishService.getFishPage(FishFilter.NONE, null, null, 5);
+        fishService.getFishPage(FishFilter.NONE, null, null, 5);
+
+        CacheStatistics pages = new CacheStatsController(cacheManager).cacheStats().get(CacheConfig.FISH_PAGES_CACHE);
+
+        assertThat(pages.size(), is(1L));
+        assertThat(pages.hits() >= 1, is(true));
+        assertThat(pages.misses() >= 1, is(true));
+    }
+
+    @Test
+    @DisplayName("only page lookups that reach the repository are timed")
+    void cacheHitsAreNotTimed() {
+        long before = pageQueries();
+
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+        fishService.getFishPage(FishFilter.NONE, null, null, 20);
+
+        assertThat(pageQueries() - before, is(1L));
+        assertThat(meterRegistry.get(FishMetrics.FISH_QUERY_ROWS).tag("query", "page").summary().max(), is(1.0));
+    }
+
+    private long pageQueries() {
+        Timer queries = meterRegistry.find(FishMetrics.FISH_QUERY).tag("query", "page").timer();
+        return queries == null ? 0 : queries.count();
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({CacheConfig.class, FishService.class, FishMetrics.class})
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TaskExecutor imageDeleteExecutor() {
+            return new SyncTaskExecutor();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected boolean isExistingTransaction(Object transaction) {
+                    // lets the service's @Transactional join the test's transaction instead of committing on its own
+                    return TransactionSynchronizationManager.isActualTransactionActive();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
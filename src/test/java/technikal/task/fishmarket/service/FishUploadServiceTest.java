@@ -0,0 +1,144 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.service.FishUploadService.FishUpload;
+import technikal.task.fishmarket.storage.FlatImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Timeout(10)
+class FishUploadServiceTest {
+
+    private static final String BOUNDARY = "upload-boundary";
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path imagesDir;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    private FishUploadService fishUploadService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        fishUploadService = new FishUploadService(new ImageStore(new FlatImageStorage(imagesDir), fishImageRepository, ImageOptimizer.disabled()),
+                new FishMetrics(new SimpleMeterRegistry()), 1);
+    }
+
+    @Test
+    @DisplayName("receive stores photos under the extension of their detected type and returns the text fields")
+    void receiveStoresPhotosAndReadsFields() throws IOException {
+        FishUpload upload = receive(new Body().field("name", "Короп").file("photo.jpeg", PNG).field("price", "120"));
+
+        assertThat(upload.fields().get("name"), is("Короп"));
+        assertThat(upload.fields().get("price"), is("120"));
+        assertThat(upload.images(), hasSize(1));
+        assertThat(upload.images().get(0).getFileName(), endsWith(".png"));
+        assertThat(upload.images().get(0).getSizeBytes(), is((long) PNG.length));
+        assertThat(fileCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("receive rejects a part that is not an image and removes the photos stored before it")
+    void receiveRejectsNonImages() throws IOException {
+        Body body = new Body().file("a.png", PNG).file("notes.jpg", "<html>".getBytes(StandardCharsets.UTF_8));
+
+        InvalidFishDataException ex = assertThrowsInvalid(body);
+
+        assertThat(ex.getMessage(), containsString("notes.jpg"));
+        assertThat(fileCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("receive stops at the first byte over the size limit")
+    void receiveRejectsOversizedPhotos() throws IOException {
+        byte[] big = Arrays.copyOf(PNG, 1024 * 1024 + 1);
+
+        InvalidFishDataException ex = assertThrowsInvalid(new Body().file("big.png", big));
+
+        assertThat(ex.getMessage(), containsString("1 МБ"));
+        assertThat(fileCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("receive rejects a fourth photo")
+    void receiveRejectsTooManyPhotos() throws IOException {
+        Body body = new Body();
+        for (int i = 0; i < 4; i++) {
+            byte[] photo = Arrays.copyOf(PNG, PNG.length + 1);
+            photo[PNG.length] = (byte) i;
+            body.file(i + ".png", photo);
+        }
+
+        assertThrowsInvalid(body);
+
+        assertThat(fileCount(), is(0L));
+    }
+
+    private InvalidFishDataException assertThrowsInvalid(Body body) {
+        return assertThrows(InvalidFishDataException.class, () -> receive(body));
+    }
+
+    private FishUpload receive(Body body) throws IOException {
+        byte[] bytes = body.build();
+        return fishUploadService.receive(CONTENT_TYPE, bytes.length, new ByteArrayInputStream(bytes));
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(imagesDir)) {
+            return files.filter(path -> !path.getFileName().toString().startsWith(".")).count();
+        }
+    }
+
+    private static final class Body {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Body field(String name, String value) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+            return this;
+        }
+
+        Body file(String fileName, byte[] content) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"imageFiles\"; filename=\"" + fileName
+                    + "\"\r\nContent-Type: image/jpeg\r\n\r\n");
+            out.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        byte[] build() {
+            write("--" + BOUNDARY + "--\r\n");
+            return out.toByteArray();
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.service.ImageOptimizer.Optimized;
+import technikal.task.fishmarket.service.ImageStore.StoredImage;
+import technikal.task.fishmarket.storage.FlatImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+@Timeout(10)
+class ImageOptimizerTest {
+
+    private static final int MAX_DIMENSION = 600;
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    private MeterRegistry registry;
+    private ImageOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        optimizer = optimizer(false);
+    }
+
+    @Test
+    @DisplayName("optimize scales a large photo down, turns it upright and writes a progressive JPEG without EXIF")
+    void optimizeReencodesLargePhoto() throws IOException {
+        // left third red, the rest blue; EXIF says the camera was turned 90° clockwise
+        Path source = Files.write(dir.resolve("photo.jpg"), withExifOrientation(jpeg(photo(1800, 600)), 6));
+        Path target = dir.resolve("optimized.jpg");
+
+        Optimized optimized = optimizer.optimize(source, target).orElseThrow();
+
+        byte[] bytes = Files.readAllBytes(target);
+        BufferedImage result = ImageIO.read(target.toFile());
+        assertThat(result.getWidth(), is(200));
+        assertThat(result.getHeight(), is(MAX_DIMENSION));
+        assertThat(isRed(result.getRGB(100, 50)), is(true));
+        assertThat(isRed(result.getRGB(100, 550)), is(false));
+        assertThat(contains(bytes, new byte[]{(byte) 0xFF, (byte) 0xC2}), is(true));
+        assertThat(contains(bytes, "Exif".getBytes(StandardCharsets.ISO_8859_1)), is(false));
+        assertThat(optimized.sizeBytes(), is((long) bytes.length));
+        assertThat(optimized.contentHash(), is(sha256(bytes)));
+        assertThat(registry.get(FishMetrics.IMAGE_OPTIMIZE).tag("outcome", "reencoded").counter().count(), is(1.0));
+        assertThat(registry.get(FishMetrics.IMAGE_BYTES_SAVED).summary().totalAmount(),
+                is((double) Files.size(source) - bytes.length));
+    }
+
+    @Test
+    @DisplayName("optimize keeps transparent images, formats it does not re-encode, and photos it cannot shrink")
+    void optimizeKeepsWhatItCannotImprove() throws IOException {
+        BufferedImage transparent = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+        Path png = dir.resolve("logo.png");
+        ImageIO.write(transparent, "png", png.toFile());
+        Path gif = dir.resolve("anim.gif");
+        ImageIO.write(photo(1000, 1000), "gif", gif.toFile());
+        // already compressed hard: at the configured quality it only grows
+        Path small = Files.write(dir.resolve("small.jpg"), jpeg(noise(400, 300), 0.1f));
+        Path target = dir.resolve("optimized.jpg");
+
+        assertThat(optimizer.optimize(png, target), is(Optional.empty()));
+        assertThat(optimizer.optimize(gif, target), is(Optional.empty()));
+        assertThat(optimizer.optimize(small, target), is(Optional.empty()));
+        assertThat(optimizer.optimize(Files.writeString(dir.resolve("notes.jpg"), "text"), target), is(Optional.empty()));
+
+        assertThat(Files.exists(target), is(false));
+        assertThat(ImageOptimizer.disabled().optimize(png, target), is(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("optimize re-encodes a photo it cannot shrink when it carries EXIF, so its GPS position is not stored")
+    void optimizeDropsMetadataOfPhotosItCannotShrink() throws IOException {
+        Path small = Files.write(dir.resolve("small.jpg"), withGpsPosition(jpeg(noise(400, 300), 0.1f)));
+        Path target = dir.resolve("optimized.jpg");
+
+        Optional<Optimized> optimized = optimizer.optimize(small, target);
+
+        assertThat(optimized.isPresent(), is(true));
+        assertThat(optimized.get().sizeBytes(), greaterThanOrEqualTo(Files.size(small)));
+        assertThat(contains(Files.readAllBytes(target), "Exif".getBytes(StandardCharsets.ISO_8859_1)), is(false));
+        assertThat(ImageIO.read(target.toFile()).getWidth(), is(400));
+    }
+
+    @Test
+    @DisplayName("ImageStore files the re-encoded JPEG under its own digest and keeps the upload only when configured")
+    void storeFilesReencodedImage() throws IOException {
+        byte[] upload = jpeg(photo(1800, 600));
+        ImageStore dropping = new ImageStore(new FlatImageStorage(dir.resolve("a")), fishImageRepository, optimizer);
+        ImageStore keeping = new ImageStore(new FlatImageStorage(dir.resolve("b")), fishImageRepository, optimizer(true));
+
+        StoredImage dropped = dropping.store(new ByteArrayInputStream(upload), "photo.jpeg");
+        StoredImage kept = keeping.store(new ByteArrayInputStream(upload), "photo.jpeg");
+
+        assertThat(dropped.fileName(), is(sha256(Files.readAllBytes(dropped.path())) + ".jpg"));
+        assertThat(dropped.sizeBytes(), lessThan((long) upload.length));
+        assertThat(dropped.originalFileName(), is(nullValue()));
+        assertThat(kept.fileName(), is(dropped.fileName()));
+        assertThat(kept.originalFileName(), endsWith("_original.jpeg"));
+        assertThat(Files.readAllBytes(dir.resolve("b").resolve(kept.originalFileName())), is(upload));
+        try (var files = Files.list(dir.resolve("a"))) {
+            assertThat(files.filter(path -> !path.getFileName().toString().startsWith(".")).count(), is(1L));
+        }
+    }
+
+    @Test
+    @DisplayName("exifOrientation reads the orientation tag and defaults to upright")
+    void exifOrientationIsRead() throws IOException {
+        byte[] plain = jpeg(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+
+        assertThat(ImageOptimizer.exifOrientation(Files.write(dir.resolve("a.jpg"), withExifOrientation(plain, 8))), is(8));
+        assertThat(ImageOptimizer.exifOrientation(Files.write(dir.resolve("b.jpg"), plain)), is(1));
+        assertThat(ImageOptimizer.exifOrientation(Files.writeString(dir.resolve("c.jpg"), "text")), is(1));
+    }
+
+    @Test
+    @DisplayName("toFishImage records the displayed size of a JPEG its EXIF orientation turns sideways")
+    void toFishImageSwapsSidesOfRotatedJpeg() throws IOException {
+        byte[] plain = jpeg(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB));
+        Path rotated = Files.write(dir.resolve("a.jpg"), withExifOrientation(plain, 6));
+        Path upsideDown = Files.write(dir.resolve("b.jpg"), withExifOrientation(plain, 3));
+
+        FishImage sideways = FishService.toFishImage(new StoredImage("a.jpg", "a", plain.length, rotated, null));
+        FishImage upright = FishService.toFishImage(new StoredImage("b.jpg", "b", plain.length, upsideDown, null));
+
+        assertThat(sideways.getWidth(), is(20));
+        assertThat(sideways.getHeight(), is(40));
+        assertThat(upright.getWidth(), is(40));
+        assertThat(upright.getHeight(), is(20));
+    }
+
+    private ImageOptimizer optimizer(boolean keepOriginals) {
+        return new ImageOptimizer(new FishMetrics(registry), true, MAX_DIMENSION, 0.8f, keepOriginals);
+    }
+
+    private static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 3, height);
+        // some detail for the encoder
+        for (int x = 0; x < width; x += 7) {
+            graphics.setColor(new Color(x * 31 % 256, x * 17 % 256, x * 7 % 256));
+            graphics.drawLine(x, 0, x, height / 10);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts a big-endian EXIF APP1 segment holding only the orientation tag right after the SOI marker.
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer app1 = ByteBuffer.allocate(36);
+        app1.put((byte) 0xFF).put((byte) 0xE1).putShort((short) 34);
+        app1.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        app1.put("MM".getBytes(StandardCharsets.ISO_8859_1)).putShort((short) 42).putInt(8);
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        app1.putInt(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.writeBytes(app1.array());
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts a big-endian EXIF APP1 segment whose GPS IFD holds a latitude reference right after the SOI marker.
+     */
+    private static byte[] withGpsPosition(byte[] jpeg) {
+        ByteBuffer app1 = ByteBuffer.allocate(54);
+        app1.put((byte) 0xFF).put((byte) 0xE1).putShort((short) 52);
+        app1.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        app1.put("MM".getBytes(StandardCharsets.ISO_8859_1)).putShort((short) 42).putInt(8);
+        // IFD0: a pointer to the GPS IFD
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x8825).putShort((short) 4).putInt(1).putInt(26);
+        app1.putInt(0);
+        // GPS IFD: GPSLatitudeRef "N"
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x0001).putShort((short) 2).putInt(2).put((byte) 'N').put(new byte[3]);
+        app1.putInt(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.writeBytes(app1.array());
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+
+    private static boolean contains(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package technikal.task.fishmarket.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+@Timeout(10)
+class ImagePlaceholderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("of reduces a photo to a few pixels with its colours, as a PNG data URI that fits the column")
+    void buildsTinyDataUri() throws IOException {
+        // left half red, right half blue
+        BufferedImage photo = new BufferedImage(1600, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = photo.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 800, 800);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(800, 0, 800, 800);
+        graphics.dispose();
+        Path image = dir.resolve("photo.png");
+        ImageIO.write(photo, "png", image.toFile());
+
+        String placeholder = ImagePlaceholder.of(image);
+
+        assertThat(placeholder, startsWith("data:image/png;base64,"));
+        assertThat(placeholder.length(), lessThanOrEqualTo(ImagePlaceholder.MAX_LENGTH));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(
+                Base64.getDecoder().decode(placeholder.substring(placeholder.indexOf(',') + 1))));
+        assertThat(decoded.getWidth(), is(ImagePlaceholder.SIZE));
+        assertThat(decoded.getHeight(), is(ImagePlaceholder.SIZE / 2));
+        assertThat(decoded.getRGB(0, 0) & 0xFFFFFF, is(0xFF0000));
+        assertThat(decoded.getRGB(ImagePlaceholder.SIZE - 1, 0) & 0xFFFFFF, is(0x0000FF));
+    }
+
+    @Test
+    @DisplayName("shrink blends transparent pixels onto white")
+    void shrinkBlendsTransparencyOntoWhite() {
+        BufferedImage transparent = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage shrunk = ImagePlaceholder.shrink(transparent);
+
+        assertThat(shrunk.getRGB(3, 3) & 0xFFFFFF, is(0xFFFFFF));
+    }
+
+    @Test
+    @DisplayName("of returns null for files that are not images")
+    void ignoresNonImages() throws IOException {
+        Path text = Files.writeString(dir.resolve("notes.jpg"), "not an image");
+
+        assertThat(ImagePlaceholder.of(text), is(nullValue()));
+    }
+}
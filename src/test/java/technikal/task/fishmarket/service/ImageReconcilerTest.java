@@ -0,0 +1,115 @@
+package technikal.task.fishmarket.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.model.FishImage;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.service.ImageReconciler.Result;
+import technikal.task.fishmarket.service.ImageStore.StoredImage;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class ImageReconcilerTest {
+
+    private static final String ORIGINAL = "0a".repeat(32) + ".jpg";
+    private static final String THUMBNAIL = "0a".repeat(32) + "_thumb.jpg";
+    private static final String ORPHAN = "0b".repeat(32) + ".jpg";
+    private static final String ORPHAN_THUMBNAIL = "0b".repeat(32) + "_thumb.jpg";
+    private static final String FRESH_ORPHAN = "0c".repeat(32) + ".png";
+    private static final String LEGACY_ORPHAN = "old_photo.jpg";
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    private ShardedImageStorage storage;
+    private ImageStore imageStore;
+    private ImageReconciler imageReconciler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        storage = new ShardedImageStorage(root);
+        imageStore = new ImageStore(storage, fishImageRepository, ImageOptimizer.disabled());
+        // batches of two, so the sweep of one directory takes several round trips
+        imageReconciler = new ImageReconciler(storage, imageStore, fishImageRepository, 2, 2, 0, 60);
+        FishImage referenced = new FishImage();
+        referenced.setFileName(ORIGINAL);
+        referenced.setThumbnailFileName(THUMBNAIL);
+        when(fishImageRepository.findReferencing(any())).thenAnswer(invocation -> {
+            List<String> names = List.copyOf(invocation.getArgument(0));
+            return names.contains(ORIGINAL) || names.contains(THUMBNAIL) ? List.of(referenced) : List.of();
+        });
+        when(fishImageRepository.isReferenced(anyString()))
+                .thenAnswer(invocation -> List.of(ORIGINAL, THUMBNAIL).contains(invocation.<String>getArgument(0)));
+    }
+
+    @Test
+    @DisplayName("reconcile deletes old unreferenced files and stale temp files, and keeps everything else")
+    void reconcileDeletesOrphans() throws Exception {
+        old(write(storage.pathFor(ORIGINAL)));
+        old(write(storage.pathFor(THUMBNAIL)));
+        old(write(storage.pathFor(ORPHAN)));
+        old(write(storage.pathFor(ORPHAN_THUMBNAIL)));
+        old(write(root.resolve(LEGACY_ORPHAN)));
+        old(write(root.resolve(".upload-1234.tmp")));
+        write(storage.pathFor(FRESH_ORPHAN));
+
+        Result result = imageReconciler.reconcile();
+
+        assertThat(result.deleted(), is(4));
+        assertThat(files(), containsInAnyOrder(ORIGINAL, THUMBNAIL, FRESH_ORPHAN));
+    }
+
+    @Test
+    @DisplayName("reconcile keeps a file an upload in flight is about to reference")
+    void reconcileKeepsPendingFiles() throws Exception {
+        StoredImage stored = imageStore.store(new ByteArrayInputStream("photo".getBytes(StandardCharsets.UTF_8)), "a.jpg");
+        old(stored.path());
+
+        Result result = imageReconciler.reconcile();
+
+        assertThat(result.orphans(), is(1));
+        assertThat(result.deleted(), is(0));
+        assertThat(files(), containsInAnyOrder(stored.fileName()));
+    }
+
+    private static Path write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, file.getFileName().toString());
+    }
+
+    private static void old(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).map(path -> path.getFileName().toString()).toList();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package technikal.task.fishmarket.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import technikal.task.fishmarket.repository.FishImageRepository;
+import technikal.task.fishmarket.service.ImageStore.StoredImage;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+class ImageStoreTest {
+
+    private static final String SHA256_OF_DATA = "3a6eb0790f39ac87c94f3856b2dd2c5d110e6811602261a9a923d3bb23adc8b7";
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private FishImageRepository fishImageRepository;
+
+    private ImageStore imageStore;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        imageStore = new ImageStore(new ShardedImageStorage(root), fishImageRepository, ImageOptimizer.disabled());
+    }
+
+    @Test
+    @DisplayName("store names the file after the SHA-256 of its content, keeps the extension and shards it by hash")
+    void storeUsesContentHashAsName() throws IOException {
+        StoredImage stored = imageStore.store(stream("data"), "Photo.JPG");
+
+        assertThat(stored.fileName(), is(SHA256_OF_DATA + ".jpg"));
+        assertThat(stored.contentHash(), is(SHA256_OF_DATA));
+        assertThat(stored.sizeBytes(), is(4L));
+        assertThat(Files.readString(stored.path()), is("data"));
+        assertThat(stored.path(), is(root.resolve("3a").resolve("6e").resolve(stored.fileName())));
+        assertThat(fileCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("store keeps a single file for identical uploads")
+    void storeDeduplicatesIdenticalContent() throws IOException {
+        StoredImage first = imageStore.store(stream("data"), "a.jpg");
+        StoredImage second = imageStore.store(stream("data"), "b.jpg");
+
+        assertThat(second.fileName(), is(first.fileName()));
+        assertThat(fileCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("deleteIfUnreferenced keeps files that an upload in flight still uses")
+    void deleteIfUnreferencedKeepsPendingFiles() {
+        StoredImage stored = imageStore.store(stream("data"), "a.jpg");
+
+        assertThat(imageStore.deleteIfUnreferenced(stored.fileName()), is(false));
+        imageStore.release(List.of(stored.fileName()));
+        assertThat(imageStore.deleteIfUnreferenced(stored.fileName()), is(true));
+        assertThat(Files.exists(stored.path()), is(false));
+    }
+
+    @Test
+    @DisplayName("deleteIfUnreferenced keeps files another fish still references")
+    void deleteIfUnreferencedKeepsSharedFiles() throws IOException {
+        StoredImage stored = imageStore.store(stream("data"), "a.jpg");
+        imageStore.release(List.of(stored.fileName()));
+        Path thumbnail = Files.writeString(stored.path().resolveSibling(SHA256_OF_DATA + "_thumb.jpg"), "thumb");
+        when(fishImageRepository.existsByFileName(stored.fileName())).thenReturn(true);
+
+        assertThat(imageStore.deleteIfUnreferenced(stored.fileName(), thumbnail.getFileName().toString()), is(false));
+        assertThat(Files.exists(stored.path()), is(true));
+        assertThat(Files.exists(thumbnail), is(true));
+    }
+
+    @Test
+    @DisplayName("deleteIfUnreferenced keeps renditions another row shares under a different extension")
+    void deleteIfUnreferencedKeepsSharedRenditions() throws IOException {
+        StoredImage jpeg = imageStore.store(stream("data"), "a.jpeg");
+        imageStore.release(List.of(jpeg.fileName()));
+        Path thumbnail = Files.writeString(jpeg.path().resolveSibling(SHA256_OF_DATA + "_thumb.jpg"), "thumb");
+        Path medium = Files.writeString(jpeg.path().resolveSibling(SHA256_OF_DATA + "_medium.jpg"), "medium");
+        // the <hash>.jpg row still uses the thumbnail; nothing uses the medium copy
+        when(fishImageRepository.isReferenced(SHA256_OF_DATA + "_thumb.jpg")).thenReturn(true);
+
+        assertThat(imageStore.deleteIfUnreferenced(jpeg.fileName(), thumbnail.getFileName().toString(),
+                medium.getFileName().toString()), is(true));
+        assertThat(Files.exists(jpeg.path()), is(false));
+        assertThat(Files.exists(thumbnail), is(true));
+        assertThat(Files.exists(medium), is(false));
+    }
+
+    @Test
+    @DisplayName("extension drops anything that is not a short alphanumeric suffix")
+    void extensionIsSanitized() {
+        assertThat(ImageStore.extension("fish.png"), is(".png"));
+        assertThat(ImageStore.extension("fish"), is(""));
+        assertThat(ImageStore.extension("fish.j/../pg"), is(""));
+        assertThat(ImageStore.extension(null), is(""));
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package technikal.task.fishmarket.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.service.ManifestReader.ManifestRow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Timeout(10)
+class ManifestReaderTest {
+
+    @Test
+    @DisplayName("read maps columns by header name and splits image names on |")
+    void readMapsColumnsByHeader() throws IOException {
+        List<ManifestRow> rows = read("price,images,name\n120,a.jpg | b.jpg,Короп\n\n200,c.jpg,Щука\n");
+
+        assertThat(rows, hasSize(2));
+        assertThat(rows.get(0), is(new ManifestRow(2, "Короп", "120", List.of("a.jpg", "b.jpg"))));
+        assertThat(rows.get(1).line(), is(4));
+        assertThat(rows.get(1).images(), contains("c.jpg"));
+    }
+
+    @Test
+    @DisplayName("read detects ; as delimiter and skips a UTF-8 BOM, as Excel writes them")
+    void readHandlesExcelExport() throws IOException {
+        List<ManifestRow> rows = read("﻿name;price;images\r\nКороп;120,5;a.jpg\r\n");
+
+        assertThat(rows, hasSize(1));
+        assertThat(rows.get(0).name(), is("Короп"));
+        assertThat(rows.get(0).price(), is("120,5"));
+    }
+
+    @Test
+    @DisplayName("read keeps delimiters, doubled quotes and line breaks inside quoted fields")
+    void readHandlesQuotedFields() throws IOException {
+        List<ManifestRow> rows = read("name,price,images\n\"Короп \"\"Дунайський\"\", великий\",120,a.jpg\n"
+                + "\"Щука\nріччна\",200,b.jpg\nОкунь,80,c.jpg\n");
+
+        assertThat(rows, hasSize(3));
+        assertThat(rows.get(0).name(), is("Короп \"Дунайський\", великий"));
+        assertThat(rows.get(1).name(), is("Щука\nріччна"));
+        assertThat(rows.get(2).line(), is(5));
+    }
+
+    @Test
+    @DisplayName("read rejects manifests without a required column or with unclosed quotes")
+    void readRejectsMalformedManifests() {
+        InvalidFishDataException missing = assertThrows(InvalidFishDataException.class,
+                () -> read("name,price\nКороп,120\n"));
+        assertThat(missing.getMessage(), containsString("images"));
+
+        assertThrows(InvalidFishDataException.class, () -> read("name,price,images\n\"Короп,120,a.jpg\n"));
+        assertThrows(InvalidFishDataException.class, () -> read(""));
+    }
+
+    private static List<ManifestRow> read(String csv) throws IOException {
+        return ManifestReader.read(new StringReader(csv));
+    }
+}
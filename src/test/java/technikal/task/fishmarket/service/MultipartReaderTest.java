@@ -0,0 +1,133 @@
+package technikal.task.fishmarket.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import technikal.task.fishmarket.exception.InvalidFishDataException;
+import technikal.task.fishmarket.service.MultipartReader.Part;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Timeout(10)
+class MultipartReaderTest {
+
+    private static final String BOUNDARY = "----FishBoundary7MA4YWxk";
+
+    @Test
+    @DisplayName("next returns fields and files in order with their names, file names and content")
+    void nextReadsFieldsAndFiles() throws IOException {
+        byte[] photo = randomBytes(200_000);
+        MultipartReader reader = reader(body(photo), Integer.MAX_VALUE);
+
+        Part name = reader.next();
+        assertThat(name.name(), is("name"));
+        assertThat(name.isFile(), is(false));
+        assertThat(text(name), is("Короп"));
+
+        Part image = reader.next();
+        assertThat(image.name(), is("imageFiles"));
+        assertThat(image.fileName(), is("фото.jpg"));
+        assertThat(image.contentType(), is("image/jpeg"));
+        assertThat(image.body().readAllBytes(), is(photo));
+
+        assertThat(text(reader.next()), is("120.5"));
+        assertThat(reader.next(), is(nullValue()));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("next finds boundaries that arrive split across reads and skips unread parts")
+    void nextHandlesSplitBoundariesAndSkippedParts() throws IOException {
+        byte[] photo = randomBytes(70_000);
+        MultipartReader reader = reader(body(photo), 7);
+
+        assertThat(reader.next().name(), is("name"));
+        Part image = reader.next();
+        assertThat(image.body().readNBytes(10), is(Arrays.copyOf(photo, 10)));
+        assertThat(text(reader.next()), is("120.5"));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("part content that resembles the boundary is not mistaken for it")
+    void nextKeepsBoundaryLikeContent() throws IOException {
+        String content = "--" + BOUNDARY.substring(0, 10) + "\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "x";
+        String body = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"note\"\r\n\r\n" + content
+                + "\r\n--" + BOUNDARY + "--\r\n";
+
+        MultipartReader reader = reader(body.getBytes(StandardCharsets.UTF_8), 3);
+
+        assertThat(text(reader.next()), is(content));
+        assertThat(reader.next(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("a body that ends without the closing boundary is rejected")
+    void nextRejectsTruncatedBody() throws IOException {
+        String body = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"imageFiles\"; filename=\"a.jpg\"\r\n\r\nabc";
+        MultipartReader reader = reader(body.getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+
+        Part part = reader.next();
+
+        assertThrows(InvalidFishDataException.class, () -> part.body().readAllBytes());
+    }
+
+    @Test
+    @DisplayName("boundary is read from a multipart/form-data content type only")
+    void boundaryParsesContentType() {
+        assertThat(MultipartReader.boundary("multipart/form-data; boundary=\"" + BOUNDARY + "\"").orElseThrow(),
+                is(BOUNDARY));
+        assertThat(MultipartReader.boundary("Multipart/Form-Data;charset=UTF-8;boundary=abc").orElseThrow(), is("abc"));
+        assertThat(MultipartReader.boundary("application/x-www-form-urlencoded").isPresent(), is(false));
+        assertThat(MultipartReader.boundary(null).isPresent(), is(false));
+    }
+
+    private static byte[] body(byte[] photo) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, "preamble is ignored\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"name\"\r\n\r\nКороп\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"imageFiles\"; filename=\"фото.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n");
+        out.writeBytes(photo);
+        write(out, "\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"price\"\r\n\r\n120.5\r\n--"
+                + BOUNDARY + "--\r\nepilogue");
+        return out.toByteArray();
+    }
+
+    /**
+     * A reader over {@code body} whose input returns at most {@code chunk} bytes per read, as a slow network does.
+     */
+    private static MultipartReader reader(byte[] body, int chunk) {
+        InputStream input = new ByteArrayInputStream(body) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+        return new MultipartReader(input, BOUNDARY);
+    }
+
+    private static String text(Part part) throws IOException {
+        return new String(part.body().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,141 @@
+package technikal.task.fishmarket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import technikal.task.fishmarket.service.RenditionCache.Rendition;
+import technikal.task.fishmarket.storage.ShardedImageStorage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@Timeout(10)
+class RenditionCacheTest {
+
+    private static final String NAME = "3a6eb0790f39ac87c94f3856b2dd2c5d110e6811602261a9a923d3bb23adc8b7.jpg";
+
+    @TempDir
+    Path dir;
+
+    private MeterRegistry registry;
+    private Path original;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new SimpleMeterRegistry();
+        original = dir.resolve(NAME);
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "jpg", original.toFile());
+    }
+
+    @Test
+    @DisplayName("get rounds the width up to the next step and renders a JPEG of that width")
+    void rendersSnappedWidth() throws IOException {
+        RenditionCache cache = cache(1024, 32);
+
+        Rendition rendition = cache.get(NAME, original, 300).orElseThrow();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(rendition.bytes()));
+        assertThat(rendition.name(), is(NAME.replace(".jpg", "_w320.jpg")));
+        assertThat(image.getWidth(), is(320));
+        assertThat(image.getHeight(), is(160));
+        assertThat(Files.exists(new ShardedImageStorage(dir.resolve("renditions")).pathFor(rendition.name())), is(true));
+    }
+
+    @Test
+    @DisplayName("get is empty when the stored image is not wider than the requested width")
+    void servesNarrowImagesAsStored() {
+        RenditionCache cache = cache(1024, 32);
+
+        assertThat(cache.get(NAME, original, 1200).isPresent(), is(false));
+        assertThat(cache.get(NAME, original, 1200).isPresent(), is(false));
+        assertThat(served("original"), is(2.0));
+    }
+
+    @Test
+    @DisplayName("repeated requests are answered from memory, or from disk when memory holds nothing")
+    void servesFromMemoryThenDisk() {
+        RenditionCache inMemory = cache(1024, 32);
+        inMemory.get(NAME, original, 160);
+        inMemory.get(NAME, original, 160);
+        assertThat(served("memory"), is(1.0));
+
+        registry = new SimpleMeterRegistry();
+        RenditionCache onDisk = cache(1024, 0);
+        onDisk.get(NAME, original, 320);
+        onDisk.get(NAME, original, 320);
+        assertThat(served("rendered"), is(1.0));
+        assertThat(served("disk"), is(1.0));
+    }
+
+    @Test
+    @DisplayName("concurrent requests for one rendition render it once")
+    void coalescesConcurrentRenders() throws Exception {
+        RenditionCache cache = cache(1024, 32);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<Rendition>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(NAME, original, 640);
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<Rendition>> result : results) {
+                assertThat(result.get().isPresent(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(served("rendered"), is(1.0));
+    }
+
+    @Test
+    @DisplayName("the least recently used rendition file is evicted once the directory is over its size")
+    void evictsLeastRecentlyUsedFromDisk() throws IOException {
+        RenditionCache cache = cache(0, 0);
+        ShardedImageStorage renditions = new ShardedImageStorage(dir.resolve("renditions"));
+
+        String first = cache.get(NAME, original, 160).orElseThrow().name();
+        String second = cache.get(NAME, original, 320).orElseThrow().name();
+
+        assertThat(Files.exists(renditions.pathFor(first)), is(false));
+        assertThat(Files.exists(renditions.pathFor(second)), is(true));
+    }
+
+    @Test
+    @DisplayName("snap picks the smallest step at least as wide, capped at the largest")
+    void snapWidths() {
+        assertThat(RenditionCache.snap(1), is(160));
+        assertThat(RenditionCache.snap(160), is(160));
+        assertThat(RenditionCache.snap(161), is(320));
+        assertThat(RenditionCache.snap(5000), is(1920));
+    }
+
+    private RenditionCache cache(long diskMb, long memoryMb) {
+        return new RenditionCache(new FishMetrics(registry), dir.resolve("renditions").toString(), diskMb, memoryMb, 2);
+    }
+
+    private double served(String source) {
+        return registry.counter(FishMetrics.IMAGE_RENDITIONS, "source", source).count();
+    }
+}
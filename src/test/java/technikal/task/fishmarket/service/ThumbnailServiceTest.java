@@ -0,0 +1,42 @@
+package technikal.task.fishmarket.service;
+
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@Timeout(10)
+class ThumbnailServiceTest {
+
+    @Test
+    @DisplayName("scale keeps the aspect ratio and hits the target width exactly")
+    void scaleKeepsAspectRatio() {
+        BufferedImage original = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage thumbnail = ThumbnailService.scale(original, ThumbnailService.THUMBNAIL_WIDTH);
+
+        assertThat(thumbnail.getWidth(), is(200));
+        assertThat(thumbnail.getHeight(), is(150));
+    }
+
+    @Test
+    @DisplayName("scale handles targets that are not a power-of-two fraction of the original")
+    void scaleToOddWidth() {
+        BufferedImage original = new BufferedImage(1000, 333, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage medium = ThumbnailService.scale(original, 800);
+
+        assertThat(medium.getWidth(), is(800));
+        assertThat(medium.getHeight(), is(266));
+    }
+
+    @Test
+    @DisplayName("renditionName replaces the extension with the rendition suffix")
+    void renditionNameReplacesExtension() {
+        assertThat(ThumbnailService.renditionName("123_0_fish.png", "_thumb.jpg"), is("123_0_fish_thumb.jpg"));
+        assertThat(ThumbnailService.renditionName("noext", "_thumb.jpg"), is("noext_thumb.jpg"));
+    }
+}
@@ -0,0 +1,87 @@
+package technikal.task.fishmarket.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+
+@Timeout(10)
+class ShardedImageStorageTest {
+
+    private static final String HASH = "3a6eb0790f39ac87c94f3856b2dd2c5d110e6811602261a9a923d3bb23adc8b7";
+
+    @TempDir
+    Path root;
+
+    private ShardedImageStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new ShardedImageStorage(root);
+    }
+
+    @Test
+    @DisplayName("content-addressed names and their renditions are sharded by their leading hex digits")
+    void contentAddressedNamesUseOwnPrefix() {
+        assertThat(storage.pathFor(HASH + ".jpg"), is(root.resolve("3a/6e/" + HASH + ".jpg")));
+        assertThat(storage.pathFor(HASH + "_thumb.jpg"), is(root.resolve("3a/6e/" + HASH + "_thumb.jpg")));
+    }
+
+    @Test
+    @DisplayName("legacy names are sharded by the hash of the name")
+    void legacyNamesUseNameHash() {
+        Path path = storage.pathFor("1723791234567_0_fish.jpg");
+
+        assertThat(root.relativize(path).toString(), matchesPattern("[0-9a-f]{2}/[0-9a-f]{2}/1723791234567_0_fish\\.jpg"));
+        assertThat(storage.pathFor("1723791234567_0_fish.jpg"), is(path));
+    }
+
+    @Test
+    @DisplayName("find falls back to the flat root for files that have not been re-sharded yet")
+    void findFallsBackToFlatLocation() throws IOException {
+        Path flat = Files.writeString(root.resolve("old.jpg"), "x");
+
+        assertThat(storage.find("old.jpg"), is(Optional.of(flat)));
+        assertThat(storage.find("missing.jpg"), is(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("reshard moves flat files into their shard and skips temp files")
+    void reshardMovesFlatFiles() throws Exception {
+        Files.writeString(root.resolve(HASH + ".jpg"), "x");
+        Files.writeString(root.resolve("old.jpg"), "y");
+        Files.writeString(root.resolve(".upload-1.tmp"), "z");
+
+        ImageResharder.Result result = new ImageResharder(storage).reshard(2);
+
+        assertThat(result.moved(), is(2));
+        assertThat(result.failed(), is(0));
+        assertThat(Files.exists(root.resolve("3a/6e/" + HASH + ".jpg")), is(true));
+        assertThat(storage.find("old.jpg"), is(Optional.of(storage.pathFor("old.jpg"))));
+        assertThat(Files.exists(root.resolve("old.jpg")), is(false));
+        assertThat(Files.exists(root.resolve(".upload-1.tmp")), is(true));
+    }
+
+    @Test
+    @DisplayName("reshard drops the flat copy when the sharded file already exists")
+    void reshardDropsDuplicateFlatCopy() throws Exception {
+        Path sharded = storage.pathFor(HASH + ".jpg");
+        Files.createDirectories(sharded.getParent());
+        Files.writeString(sharded, "x");
+        Files.writeString(root.resolve(HASH + ".jpg"), "x");
+
+        new ImageResharder(storage).reshard(1);
+
+        assertThat(Files.exists(root.resolve(HASH + ".jpg")), is(false));
+        assertThat(Files.exists(sharded), is(true));
+    }
+}